@@ -0,0 +1,100 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.function.AccountAggregationFunction;
+import com.example.geodedemo.function.AccountStats;
+import com.example.geodedemo.function.AccountStatsCollector;
+import com.example.geodedemo.serialization.CompactEntityPdxSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.execute.FunctionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.gemfire.mapping.MappingPdxSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountAggregationFunction executed on an in-process partitioned Accounts
+ * region, collected and merged the way FunctionExecutionService does it.
+ *
+ * - readSerialized=false: each entry is deserialized into an Account
+ * - readSerialized=true:  PdxInstance field reads (balance, accountType only)
+ *
+ * Sizes either side of the function's parallel threshold (50,000 local entries)
+ * cover the single-pass and the chunked fork-join scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class AggregationBenchmark {
+
+    private static final int LOAD_CHUNK = 1_000;
+
+    @Param({"10000", "100000"})
+    public int accounts;
+
+    @Param({"false", "true"})
+    public boolean readSerialized;
+
+    @Param({"TOTAL_BALANCE", "SUMMARY"})
+    public String operation;
+
+    private Cache cache;
+    private Region<String, Account> region;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = EmbeddedCache.create(
+            new CompactEntityPdxSerializer(MappingPdxSerializer.newMappingPdxSerializer()), readSerialized);
+        region = cache.<String, Account>createRegionFactory(RegionShortcut.PARTITION).create("Accounts");
+
+        Map<String, Account> batch = new HashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            Account account = EmbeddedCache.account(i);
+            batch.put(account.getAccountId(), account);
+            if (batch.size() == LOAD_CHUNK) {
+                region.putAll(batch);
+                batch.clear();
+            }
+        }
+        region.putAll(batch);
+
+        FunctionService.registerFunction(new AccountAggregationFunction());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FunctionService.unregisterFunction(AccountAggregationFunction.ID);
+        EmbeddedCache.close(cache);
+    }
+
+    @Benchmark
+    public Object aggregate() throws InterruptedException {
+        AccountStatsCollector collector = new AccountStatsCollector();
+        FunctionService.onRegion(region)
+            .setArguments(operation)
+            .withCollector(collector)
+            .execute(AccountAggregationFunction.ID);
+
+        AccountStats merged = collector.getResult(30, TimeUnit.SECONDS);
+        return merged.render(operation);
+    }
+}
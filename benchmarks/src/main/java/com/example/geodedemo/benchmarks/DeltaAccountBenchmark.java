@@ -0,0 +1,115 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.delta.DeltaAccount;
+import com.example.geodedemo.delta.DeltaAccountCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeltaAccount delta encode/decode, binary format against the original
+ * writeUTF string format (kept here as the baseline encoder; DeltaAccount
+ * still decodes it).
+ *
+ * - change=balance: a deposit/withdrawal, the bulk of all deltas
+ * - change=all:     balance, status and credit limit together
+ *
+ * Delta sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaAccountBenchmark {
+
+    @Param({"binary", "legacy"})
+    public String format;
+
+    @Param({"balance", "all"})
+    public String change;
+
+    private DeltaAccount account;
+    private DeltaAccount receiver;
+    private int mask;
+    private byte[] delta;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        account = new DeltaAccount("ACC00000042", "CUST000042", "SAVINGS", new BigDecimal("15234.75"));
+        account.setCreditLimit(new BigDecimal("50000.00"));
+        account.setStatus("FROZEN");
+        account.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 30, 15, 123_456_000));
+        account.resetDeltaFlags();
+
+        mask = "all".equals(change)
+            ? DeltaAccountCodec.BALANCE | DeltaAccountCodec.STATUS | DeltaAccountCodec.CREDIT_LIMIT
+            : DeltaAccountCodec.BALANCE;
+        receiver = account.copy();
+        delta = encode();
+        System.out.printf("%n[%s/%s] delta size: %d bytes%n", format, change, delta.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if ("legacy".equals(format)) {
+                writeLegacy(out, account, mask);
+            } else {
+                DeltaAccountCodec.write(out, account, mask);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public DeltaAccount decode() throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta))) {
+            receiver.fromDelta(in);
+        }
+        return receiver;
+    }
+
+    /**
+     * The original DeltaAccount.toDelta encoding.
+     */
+    private static void writeLegacy(DataOutput out, DeltaAccount account, int mask) throws IOException {
+        boolean balance = (mask & DeltaAccountCodec.BALANCE) != 0;
+        boolean status = (mask & DeltaAccountCodec.STATUS) != 0;
+        boolean creditLimit = (mask & DeltaAccountCodec.CREDIT_LIMIT) != 0;
+        out.writeBoolean(balance);
+        out.writeBoolean(status);
+        out.writeBoolean(creditLimit);
+        if (balance) {
+            out.writeUTF(account.getBalance() != null ? account.getBalance().toString() : "0");
+        }
+        if (status) {
+            out.writeUTF(account.getStatus() != null ? account.getStatus() : "");
+        }
+        if (creditLimit) {
+            out.writeUTF(account.getCreditLimit() != null ? account.getCreditLimit().toString() : "0");
+        }
+        out.writeUTF(account.getUpdatedAt() != null ? account.getUpdatedAt().toString() : LocalDateTime.now().toString());
+    }
+}
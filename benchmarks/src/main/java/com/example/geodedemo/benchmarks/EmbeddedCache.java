@@ -0,0 +1,71 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.entity.Customer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.pdx.PdxSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * In-process Geode peer cache with no locator and no network members, plus
+ * sample entities shared by the benchmarks.
+ */
+final class EmbeddedCache {
+
+    private EmbeddedCache() {
+    }
+
+    /**
+     * @param pdxSerializer null to leave PDX off (Java serialization for Serializable values)
+     */
+    static Cache create(PdxSerializer pdxSerializer, boolean readSerialized) {
+        CacheFactory factory = new CacheFactory()
+            .set("name", "benchmark")
+            .set("mcast-port", "0")
+            .set("locators", "")
+            .set("log-level", "warn")
+            .set("statistic-sampling-enabled", "false")
+            .set("enable-time-statistics", "false");
+        if (pdxSerializer != null) {
+            factory.setPdxSerializer(pdxSerializer);
+        }
+        factory.setPdxReadSerialized(readSerialized);
+        return factory.create();
+    }
+
+    static void close(Cache cache) {
+        if (cache != null && !cache.isClosed()) {
+            cache.close();
+        }
+    }
+
+    static Account account(int i) {
+        return Account.builder()
+            .accountId(String.format("ACC%08d", i))
+            .customerId(String.format("CUST%06d", i % 100_000))
+            .accountNumber(String.format("1234-5678-%08d", i))
+            .accountType(Account.AccountType.values()[i % Account.AccountType.values().length])
+            .balance(BigDecimal.valueOf(1_000_000L + i * 137L, 2))
+            .creditLimit(BigDecimal.valueOf(500_000, 2))
+            .status(Account.AccountStatus.ACTIVE)
+            .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0).plusSeconds(i))
+            .updatedAt(LocalDateTime.of(2024, 6, 1, 12, 30).plusSeconds(i))
+            .build();
+    }
+
+    static Customer customer(int i) {
+        return Customer.builder()
+            .customerId(String.format("CUST%06d", i))
+            .name("Customer " + i)
+            .email("customer" + i + "@example.com")
+            .phone(String.format("+886-2-%08d", i))
+            .address(i + " Zhongxiao East Road, Taipei")
+            .status(Customer.CustomerStatus.ACTIVE)
+            .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0).plusSeconds(i))
+            .updatedAt(LocalDateTime.of(2024, 6, 1, 12, 30).plusSeconds(i))
+            .build();
+    }
+}
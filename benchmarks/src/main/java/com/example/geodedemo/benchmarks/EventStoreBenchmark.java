@@ -0,0 +1,116 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.cq.BalanceChangeEvent;
+import com.example.geodedemo.cq.EventLog;
+import com.example.geodedemo.cq.EventStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventStore.addEvent under contention (no EventLog).
+ *
+ * - addEvent:      4 writer threads
+ * - mixed:         3 writers alongside 1 thread reading an account's history
+ *
+ * A small account pool makes writers collide on the per-account indexes;
+ * a large one spreads them out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStoreBenchmark {
+
+    private static final int EVENTS_PER_THREAD = 4_096;
+
+    @Param({"1000", "100000"})
+    public int capacity;
+
+    @Param({"16", "10000"})
+    public int accountPool;
+
+    private EventStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new EventStore(capacity, new StaticListableBeanFactory().getBeanProvider(EventLog.class));
+    }
+
+    /**
+     * Pre-built events per thread, so the benchmark measures the store, not event creation.
+     */
+    @State(Scope.Thread)
+    public static class Events {
+        private BalanceChangeEvent[] events;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(EventStoreBenchmark benchmark) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            events = new BalanceChangeEvent[EVENTS_PER_THREAD];
+            for (int i = 0; i < events.length; i++) {
+                BigDecimal oldBalance = BigDecimal.valueOf(random.nextLong(1_000_000), 2);
+                BigDecimal change = BigDecimal.valueOf(random.nextLong(-50_000, 50_000), 2);
+                events[i] = BalanceChangeEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .accountId(String.format("ACC%08d", random.nextInt(benchmark.accountPool)))
+                    .eventType("UPDATED")
+                    .oldBalance(oldBalance)
+                    .newBalance(oldBalance.add(change))
+                    .changeAmount(change)
+                    .timestamp(LocalDateTime.now())
+                    .alertType(i % 20 == 0 ? "LARGE_TRANSACTION" : null)
+                    .build();
+            }
+        }
+
+        BalanceChangeEvent next() {
+            BalanceChangeEvent event = events[next];
+            next = (next + 1) % events.length;
+            return event;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addEvent(Events events) {
+        store.addEvent(events.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedWrite(Events events) {
+        store.addEvent(events.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<BalanceChangeEvent> mixedRead(Events events) {
+        return store.getEventsByAccount(events.next().getAccountId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.entity.Customer;
+import com.example.geodedemo.metrics.GeodeMetricsService;
+import com.example.geodedemo.search.LuceneSearchService;
+import com.example.geodedemo.serialization.CompactEntityPdxSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.gemfire.mapping.MappingPdxSerializer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LuceneSearchService.fallbackSearch, the region scan used when no Lucene
+ * service or index is available, over an in-process Customers region.
+ *
+ * fallbackSearch is private; it is called through a method handle so the
+ * public path's "Lucene not available" warning is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LuceneFallbackSearchBenchmark {
+
+    @Param({"1000", "50000"})
+    public int customers;
+
+    @Param({"name", "email"})
+    public String field;
+
+    private Cache cache;
+    private MethodHandle fallbackSearch;
+    private LuceneSearchService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        cache = EmbeddedCache.create(
+            new CompactEntityPdxSerializer(MappingPdxSerializer.newMappingPdxSerializer()), false);
+        Region<String, Customer> region = cache.<String, Customer>createRegionFactory(RegionShortcut.PARTITION)
+            .create("Customers");
+
+        Map<String, Customer> all = new HashMap<>();
+        for (int i = 0; i < customers; i++) {
+            Customer customer = EmbeddedCache.customer(i);
+            all.put(customer.getCustomerId(), customer);
+        }
+        region.putAll(all);
+
+        // init() is not called, so the service has no Lucene and scans the region
+        service = new LuceneSearchService(cache, new GeodeMetricsService(new SimpleMeterRegistry(), cache));
+        Method method = LuceneSearchService.class.getDeclaredMethod("fallbackSearch", String.class, String.class);
+        method.setAccessible(true);
+        fallbackSearch = MethodHandles.lookup().unreflect(method);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EmbeddedCache.close(cache);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Customer> fallbackSearch() throws Throwable {
+        // Wildcards are stripped by the scan, so this is a substring match on "7"
+        return (List<Customer>) fallbackSearch.invoke(service, field, "*7?");
+    }
+}
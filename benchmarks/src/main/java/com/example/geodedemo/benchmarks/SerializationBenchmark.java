@@ -0,0 +1,109 @@
+package com.example.geodedemo.benchmarks;
+
+import com.example.geodedemo.serialization.CompactEntityPdxSerializer;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.pdx.PdxSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account/Customer serialization round-trip through Geode's DataSerializer,
+ * the path every put, get, CQ event and function result takes.
+ *
+ * Formats:
+ * - java:        no PDX serializer, plain java.io.Serializable
+ * - mapping-pdx: Spring Data's reflection-based MappingPdxSerializer (the previous default)
+ * - compact-pdx: CompactEntityPdxSerializer
+ *
+ * Serialized sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"java", "mapping-pdx", "compact-pdx"})
+    public String format;
+
+    @Param({"account", "customer"})
+    public String entity;
+
+    private Cache cache;
+    private Object value;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cache = EmbeddedCache.create(serializer(format), false);
+        value = "account".equals(entity) ? EmbeddedCache.account(42) : EmbeddedCache.customer(42);
+        serialized = serialize();
+        System.out.printf("%n[%s/%s] serialized size: %d bytes%n", format, entity, serialized.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EmbeddedCache.close(cache);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            DataSerializer.writeObject(value, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            return DataSerializer.readObject(in);
+        }
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            DataSerializer.writeObject(value, out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return DataSerializer.readObject(in);
+        }
+    }
+
+    private static PdxSerializer serializer(String format) {
+        switch (format) {
+            case "mapping-pdx":
+                return org.springframework.data.gemfire.mapping.MappingPdxSerializer.newMappingPdxSerializer();
+            case "compact-pdx":
+                return new CompactEntityPdxSerializer(
+                    org.springframework.data.gemfire.mapping.MappingPdxSerializer.newMappingPdxSerializer());
+            case "java":
+            default:
+                return null;
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.geodedemo;
 
+import com.example.geodedemo.serialization.PdxSerializerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.gemfire.config.annotation.EnableEntityDefinedRegions;
 import org.springframework.data.gemfire.config.annotation.EnablePdx;
 import org.springframework.data.gemfire.repository.config.EnableGemfireRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnablePdx
+@EnablePdx(serializerBeanName = PdxSerializerConfig.SERIALIZER_BEAN_NAME)
 @EnableEntityDefinedRegions(basePackages = "com.example.geodedemo.entity")
 @EnableGemfireRepositories(basePackages = "com.example.geodedemo.repository")
+// For @Scheduled beans across the app (metrics polling, event log retention)
+@EnableScheduling
 public class GeodeDemoApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,118 @@
+package com.example.geodedemo.async;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Materialized account aggregates published by one AccountAsyncEventListener
+ * to the AccountAggregates region. Cluster-wide figures are the merge of all
+ * published entries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountAggregate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String REGION_NAME = "AccountAggregates";
+
+    // Member that maintains this entry
+    private String member;
+    private long accountCount;
+    private long balanceCount;
+    private BigDecimal totalBalance;
+    private BigDecimal minBalance;
+    private BigDecimal maxBalance;
+    private Map<String, Long> countsByType;
+    private Map<String, Long> countsByStatus;
+    private long eventsApplied;
+    private LocalDateTime updatedAt;
+    private LocalDateTime reconciledAt;
+
+    public BigDecimal getAverageBalance() {
+        if (balanceCount == 0 || totalBalance == null) {
+            return BigDecimal.ZERO;
+        }
+        return totalBalance.divide(BigDecimal.valueOf(balanceCount), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Same shape as the SUMMARY operation of AccountAggregationFunction, plus
+     * counts by status and freshness.
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, BigDecimal> minMax = new HashMap<>();
+        minMax.put("min", minBalance != null ? minBalance : BigDecimal.ZERO);
+        minMax.put("max", maxBalance != null ? maxBalance : BigDecimal.ZERO);
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalBalance", totalBalance != null ? totalBalance : BigDecimal.ZERO);
+        summary.put("averageBalance", getAverageBalance());
+        summary.put("countByType", countsByType != null ? countsByType : Map.of());
+        summary.put("countByStatus", countsByStatus != null ? countsByStatus : Map.of());
+        summary.put("minMaxBalance", minMax);
+        summary.put("totalAccounts", accountCount);
+        summary.put("updatedAt", updatedAt);
+        summary.put("reconciledAt", reconciledAt);
+        return summary;
+    }
+
+    /**
+     * Merge the entries published by each member into one cluster-wide aggregate.
+     */
+    public static AccountAggregate merge(Collection<AccountAggregate> parts) {
+        AccountAggregate merged = AccountAggregate.builder()
+            .member("cluster")
+            .totalBalance(BigDecimal.ZERO)
+            .countsByType(new LinkedHashMap<>())
+            .countsByStatus(new LinkedHashMap<>())
+            .build();
+
+        for (AccountAggregate part : parts) {
+            if (part == null) {
+                continue;
+            }
+            merged.accountCount += part.accountCount;
+            merged.balanceCount += part.balanceCount;
+            merged.eventsApplied += part.eventsApplied;
+            if (part.totalBalance != null) {
+                merged.totalBalance = merged.totalBalance.add(part.totalBalance);
+            }
+            if (part.minBalance != null && (merged.minBalance == null || part.minBalance.compareTo(merged.minBalance) < 0)) {
+                merged.minBalance = part.minBalance;
+            }
+            if (part.maxBalance != null && (merged.maxBalance == null || part.maxBalance.compareTo(merged.maxBalance) > 0)) {
+                merged.maxBalance = part.maxBalance;
+            }
+            if (part.countsByType != null) {
+                part.countsByType.forEach((k, v) -> merged.countsByType.merge(k, v, Long::sum));
+            }
+            if (part.countsByStatus != null) {
+                part.countsByStatus.forEach((k, v) -> merged.countsByStatus.merge(k, v, Long::sum));
+            }
+            // The cluster view is only as fresh as its stalest part
+            merged.updatedAt = older(merged.updatedAt, part.updatedAt);
+            merged.reconciledAt = older(merged.reconciledAt, part.reconciledAt);
+        }
+        return merged;
+    }
+
+    private static LocalDateTime older(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.geodedemo.async;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.Region;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the materialized account aggregates published by the servers.
+ * A read is one keySetOnServer plus one getAll over a few entries,
+ * independent of the number of accounts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountAggregateService {
+
+    private final GemFireCache cache;
+
+    /**
+     * Cluster-wide aggregate, or empty when no listener has published yet.
+     */
+    public Optional<AccountAggregate> getAggregate() {
+        Region<String, AccountAggregate> region = getAggregateRegion();
+        if (region == null) {
+            return Optional.empty();
+        }
+        try {
+            Set<String> keys = region.keySetOnServer();
+            if (keys.isEmpty()) {
+                return Optional.empty();
+            }
+            Map<String, AccountAggregate> parts = region.getAll(keys);
+            return Optional.of(AccountAggregate.merge(parts.values()));
+        } catch (Exception e) {
+            log.warn("Could not read materialized aggregates: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Region<String, AccountAggregate> getAggregateRegion() {
+        return cache.getRegion(AccountAggregate.REGION_NAME);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.geodedemo.async;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import org.apache.geode.pdx.PdxInstance;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Account aggregates kept as plain numbers: count, total balance, counts by
+ * type and status, and min/max.
+ *
+ * Changes are applied as differences (AccountChange carries the previous
+ * state), so nothing per key is kept. Min/max can only widen between
+ * reconciliations: removing or lowering the current max leaves it in place
+ * until the next full scan (add()) recomputes it exactly.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+class AccountAggregateTracker {
+
+    private static final Account.AccountType[] TYPES = Account.AccountType.values();
+    private static final Account.AccountStatus[] STATUSES = Account.AccountStatus.values();
+
+    private final long[] countsByType = new long[TYPES.length];
+    private final long[] countsByStatus = new long[STATUSES.length];
+    private long accountCount;
+    private long balanceCount;
+    private BigDecimal totalBalance = BigDecimal.ZERO;
+    private BigDecimal minBalance;
+    private BigDecimal maxBalance;
+
+    /**
+     * Count a region value (Account or PdxInstance), as found by a scan.
+     */
+    void add(Object value) {
+        if (value instanceof PdxInstance) {
+            PdxInstance pdx = (PdxInstance) value;
+            add(AccountPdxReader.balance(pdx), AccountPdxReader.accountType(pdx), AccountPdxReader.status(pdx), 1);
+        } else if (value instanceof Account) {
+            Account account = (Account) value;
+            add(account.getBalance(), account.getAccountType(), account.getStatus(), 1);
+        }
+    }
+
+    /**
+     * Apply a change: take out what the entry held before, count what it holds now.
+     *
+     * @return false if the change was not applied because its previous state is unknown
+     */
+    boolean apply(AccountChange change) {
+        if (!change.isPreviousKnown()) {
+            return false;
+        }
+        if (change.isPreviousPresent()) {
+            add(change.getPreviousBalance(), change.getPreviousType(), change.getPreviousStatus(), -1);
+        }
+        add(change.getValue());
+        return true;
+    }
+
+    private void add(BigDecimal balance, Account.AccountType type, Account.AccountStatus status, int sign) {
+        accountCount += sign;
+        if (balance != null) {
+            totalBalance = sign > 0 ? totalBalance.add(balance) : totalBalance.subtract(balance);
+            balanceCount += sign;
+            if (sign > 0) {
+                widen(balance, balance);
+            }
+        }
+        if (type != null) {
+            countsByType[type.ordinal()] += sign;
+        }
+        if (status != null) {
+            countsByStatus[status.ordinal()] += sign;
+        }
+    }
+
+    private void widen(BigDecimal min, BigDecimal max) {
+        if (min != null && (minBalance == null || min.compareTo(minBalance) < 0)) {
+            minBalance = min;
+        }
+        if (max != null && (maxBalance == null || max.compareTo(maxBalance) > 0)) {
+            maxBalance = max;
+        }
+    }
+
+    void combine(AccountAggregateTracker other) {
+        accountCount += other.accountCount;
+        balanceCount += other.balanceCount;
+        totalBalance = totalBalance.add(other.totalBalance);
+        widen(other.minBalance, other.maxBalance);
+        for (int i = 0; i < countsByType.length; i++) {
+            countsByType[i] += other.countsByType[i];
+        }
+        for (int i = 0; i < countsByStatus.length; i++) {
+            countsByStatus[i] += other.countsByStatus[i];
+        }
+    }
+
+    BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    AccountAggregate snapshot(String member, long eventsApplied, LocalDateTime reconciledAt) {
+        return AccountAggregate.builder()
+            .member(member)
+            .accountCount(accountCount)
+            .balanceCount(balanceCount)
+            .totalBalance(totalBalance)
+            .minBalance(balanceCount > 0 ? minBalance : null)
+            .maxBalance(balanceCount > 0 ? maxBalance : null)
+            .countsByType(toMap(TYPES, countsByType))
+            .countsByStatus(toMap(STATUSES, countsByStatus))
+            .eventsApplied(eventsApplied)
+            .updatedAt(LocalDateTime.now())
+            .reconciledAt(reconciledAt)
+            .build();
+    }
+
+    private static Map<String, Long> toMap(Enum<?>[] names, long[] counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (counts[i] > 0) {
+                result.put(names[i].name(), counts[i]);
+            }
+        }
+        return result;
+    }
+}
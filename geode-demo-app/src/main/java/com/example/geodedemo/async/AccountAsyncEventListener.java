@@ -1,12 +1,36 @@
 package com.example.geodedemo.async;
 
 import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.Cache;
 import org.apache.geode.cache.Operation;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
 import org.apache.geode.cache.asyncqueue.AsyncEvent;
 import org.apache.geode.cache.asyncqueue.AsyncEventListener;
+import org.apache.geode.cache.asyncqueue.AsyncEventQueue;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.distributed.DistributedMember;
 
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -22,38 +46,356 @@ import java.util.concurrent.atomic.AtomicLong;
  * - Event-driven architecture integration
  * - Analytics and reporting pipelines
  * - Write-behind to slow external systems
+ *
+ * Materialized aggregates:
+ * Every successful batch updates the aggregates of each worker partition
+ * (PartitionAggregate) and publishes their combination to the
+ * AccountAggregates region, so summary reads cost a handful of gets instead of
+ * a region scan. A serial queue publishes under "queue:<id>", a parallel queue
+ * under "member:<name>" (each member sees its primary buckets). Updates and
+ * destroys are applied as differences, which needs the previous state queued
+ * by AccountChangeSubstitutionFilter (see AccountPreviousValueWriter); without
+ * them only creates are tracked between reconciliations. A periodic reconciliation recounts the
+ * data with a scan that blocks no event processing and logs any drift, e.g.
+ * after a failover or a rebalance moved buckets between members.
+ *
+ * Conflation and dead-lettering:
+ * Each batch is reduced to the latest event per key before processing, so a
+ * hot account costs one update per batch. An event that fails max-attempts
+ * times (processing or a row the store rejects) is copied to the
+ * AccountEventsDeadLetter region with its retry count and skipped, so one bad
+ * record cannot stall the queue. Store outages are retried without counting.
+ * Dead-lettered events are remembered until their batch succeeds, so when the
+ * batch is retried for another event they are skipped rather than retried.
+ *
+ * Parallel processing:
+ * The conflated batch is split by key hash into worker-threads partitions
+ * that are processed (and written behind) in parallel. A key always maps to
+ * the same partition and the listener waits for every partition before
+ * returning, so per-account order is kept across batches. Each partition
+ * records Geode statistics (AccountAsyncPartitionStats, see PartitionStats).
+ *
+ * Write-behind:
+ * When jdbc-url is set, each batch is also written to a relational store by
+ * AccountWriteBehindSink (latest state per key, batched upserts and deletes).
+ * If the write fails the batch is retried, and only the keys not yet
+ * committed are written again.
+ *
+ * Listener params (gfsh --listener-param):
+ * - reconcile-interval-seconds: reconciliation period, default 300 (0 disables)
+ * - jdbc-url, jdbc-user, jdbc-password: write-behind store, disabled when jdbc-url is unset
+ * - jdbc-chunk-size: rows per JDBC transaction, default 500
+ * - max-attempts: failures before an event is dead-lettered, default 3
+ * - worker-threads: key-hash partitions processed in parallel, default = available processors
  */
 @Slf4j
 public class AccountAsyncEventListener implements AsyncEventListener {
 
+    static final String RECONCILE_INTERVAL_PARAM = "reconcile-interval-seconds";
+    static final String JDBC_URL_PARAM = "jdbc-url";
+    static final String JDBC_USER_PARAM = "jdbc-user";
+    static final String JDBC_PASSWORD_PARAM = "jdbc-password";
+    static final String JDBC_CHUNK_SIZE_PARAM = "jdbc-chunk-size";
+    static final String MAX_ATTEMPTS_PARAM = "max-attempts";
+    static final String WORKER_THREADS_PARAM = "worker-threads";
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_RECONCILE_INTERVAL_SECONDS = 300;
+    private static final int DEFAULT_JDBC_CHUNK_SIZE = 500;
+
     private final AtomicLong processedCount = new AtomicLong(0);
     private final AtomicLong batchCount = new AtomicLong(0);
+    private final AtomicLong conflatedCount = new AtomicLong(0);
+    private final AtomicLong deadLetterCount = new AtomicLong(0);
+
+    // Failed attempts per key, for the event currently failing
+    private final Map<String, FailureRecord> failures = new ConcurrentHashMap<>();
+    // Events (key|sequence id) already dead-lettered in a batch that has not succeeded yet
+    private final Set<String> deadLettered = ConcurrentHashMap.newKeySet();
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    // One per worker partition, created with the workers
+    private PartitionAggregate[] aggregates;
+    private volatile LocalDateTime reconciledAt;
+    private volatile boolean untrackedWarned;
+    private long reconcileIntervalSeconds = DEFAULT_RECONCILE_INTERVAL_SECONDS;
+    private volatile Cache cache;
+    private volatile String aggregateKey;
+    private ScheduledExecutorService reconciler;
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService workers;
+    private PartitionStats[] partitionStats;
+    // One sink (and connection) per partition; null when write-behind is disabled
+    private AccountWriteBehindSink[] writeBehind;
+
+    @Override
+    public void initialize(Cache cache, Properties properties) {
+        this.cache = cache;
+        String interval = properties.getProperty(RECONCILE_INTERVAL_PARAM);
+        if (interval != null) {
+            reconcileIntervalSeconds = Long.parseLong(interval.trim());
+        }
+
+        String attempts = properties.getProperty(MAX_ATTEMPTS_PARAM);
+        if (attempts != null) {
+            maxAttempts = Math.max(1, Integer.parseInt(attempts.trim()));
+        }
+
+        String threads = properties.getProperty(WORKER_THREADS_PARAM);
+        if (threads != null) {
+            workerThreads = Math.max(1, Integer.parseInt(threads.trim()));
+        }
+
+        String jdbcUrl = properties.getProperty(JDBC_URL_PARAM);
+        if (jdbcUrl != null && !jdbcUrl.isBlank()) {
+            String chunkSize = properties.getProperty(JDBC_CHUNK_SIZE_PARAM);
+            writeBehind = new AccountWriteBehindSink[workerThreads];
+            for (int i = 0; i < workerThreads; i++) {
+                writeBehind[i] = new AccountWriteBehindSink(jdbcUrl,
+                    properties.getProperty(JDBC_USER_PARAM, ""),
+                    properties.getProperty(JDBC_PASSWORD_PARAM, ""),
+                    chunkSize != null ? Integer.parseInt(chunkSize.trim()) : DEFAULT_JDBC_CHUNK_SIZE);
+            }
+            log.info("[AsyncEventListener] Write-behind enabled to {} with {} connections", jdbcUrl, workerThreads);
+        }
+    }
 
     @Override
     public boolean processEvents(List<AsyncEvent> events) {
         batchCount.incrementAndGet();
-        log.info("[AsyncEventListener] Processing batch of {} events", events.size());
+        ensureStarted(events);
+
+        // The same key always lands in the same partition, so conflating each one
+        // is the same as conflating the batch
+        List<List<AsyncEvent>> partitions = partition(events);
+        List<AsyncEvent> latest = new ArrayList<>(events.size());
+        List<Future<PartitionResult>> results = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            int partition = i;
+            List<AsyncEvent> slice = conflate(partitions.get(i));
+            latest.addAll(slice);
+            if (!slice.isEmpty()) {
+                results.add(workers.submit(() -> processPartition(partition, slice)));
+            }
+        }
+        conflatedCount.addAndGet(events.size() - latest.size());
+        log.info("[AsyncEventListener] Processing batch of {} events ({} after conflation)",
+            events.size(), latest.size());
+
+        // Wait for every partition, so the next batch cannot overtake this one for any key
+        boolean retry = false;
+        SQLException storeFailure = null;
+        for (Future<PartitionResult> future : results) {
+            try {
+                PartitionResult result = future.get();
+                retry |= result.retry;
+                if (result.storeFailure != null) {
+                    storeFailure = result.storeFailure;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retry = true;
+            } catch (ExecutionException e) {
+                log.error("[AsyncEventListener] Partition failed: {}", e.getCause().getMessage());
+                retry = true;
+            }
+        }
+
+        if (storeFailure != null) {
+            // Store unreachable: not the event's fault, so retry without counting an attempt.
+            // Committed chunks are remembered, so the retry only rewrites the rest.
+            log.error("[AsyncEventListener] Write-behind failed, batch will be retried: {}", storeFailure.getMessage());
+            return false;
+        }
+        if (retry) {
+            // Everything done above is idempotent, so replaying the batch is safe
+            log.warn("[AsyncEventListener] Batch will be retried for failed events");
+            return false;
+        }
+        // Every key in the batch either succeeded or was dead-lettered
+        for (AsyncEvent event : latest) {
+            failures.remove(String.valueOf(event.getKey()));
+            deadLettered.remove(eventId(event));
+        }
+        // Only now, so a retried batch is never counted twice. Every event counts,
+        // not just the latest per key: each carries its own difference.
+        applyAggregates(partitions);
+        publishAggregate();
+
+        log.info("[AsyncEventListener] Batch processed successfully. Total processed: {}",
+            processedCount.get());
+        return true;
+    }
 
+    /**
+     * Process one key-hash partition of a batch: every event, then its
+     * write-behind on the partition's own connection.
+     */
+    private PartitionResult processPartition(int partition, List<AsyncEvent> events) {
+        long started = System.nanoTime();
+        boolean retry = false;
+        int failed = 0;
+        SQLException storeFailure = null;
+
+        List<AsyncEvent> processed = new ArrayList<>(events.size());
         for (AsyncEvent event : events) {
+            if (deadLettered.contains(eventId(event))) {
+                // Redelivered with a batch retried for another event
+                continue;
+            }
             try {
                 processEvent(event);
                 processedCount.incrementAndGet();
+                processed.add(event);
             } catch (Exception e) {
-                log.error("[AsyncEventListener] Error processing event: {}", e.getMessage());
-                // Return false to retry the entire batch
-                // In production, implement more sophisticated error handling
-                return false;
+                log.error("[AsyncEventListener] Error processing event for key {}: {}", event.getKey(), e.getMessage());
+                failed++;
+                retry |= !recordFailure(event, e);
             }
         }
 
-        log.info("[AsyncEventListener] Batch processed successfully. Total processed: {}",
-            processedCount.get());
+        if (writeBehind != null) {
+            try {
+                for (AccountWriteBehindSink.Rejected rejected : writeBehind[partition].write(processed)) {
+                    failed++;
+                    retry |= !recordFailure(rejected.event, rejected.error);
+                }
+            } catch (SQLException e) {
+                storeFailure = e;
+            }
+        }
+
+        if (partitionStats != null) {
+            partitionStats[partition].record(events.size(), failed, System.nanoTime() - started);
+        }
+        return new PartitionResult(retry, storeFailure);
+    }
+
+    /**
+     * Apply a successful batch to each partition's aggregates, in parallel.
+     */
+    private void applyAggregates(List<List<AsyncEvent>> partitions) {
+        List<Future<?>> applied = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            PartitionAggregate aggregate = aggregates[i];
+            List<AsyncEvent> slice = partitions.get(i);
+            if (!slice.isEmpty()) {
+                applied.add(workers.submit(() -> aggregate.apply(slice)));
+            }
+        }
+        for (Future<?> future : applied) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Drift until the next reconciliation; the batch itself is done
+                log.error("[AsyncEventListener] Aggregate update failed: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Split by key hash. The same key always lands in the same partition, so
+     * its write-behind state, aggregates and ordering stay with one worker.
+     */
+    private List<List<AsyncEvent>> partition(List<AsyncEvent> events) {
+        List<List<AsyncEvent>> partitions = new ArrayList<>(workerThreads);
+        for (int i = 0; i < workerThreads; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (AsyncEvent event : events) {
+            partitions.get(partitionOf(event.getKey())).add(event);
+        }
+        return partitions;
+    }
+
+    private int partitionOf(Object key) {
+        return Math.floorMod(key != null ? key.hashCode() : 0, workerThreads);
+    }
+
+    /**
+     * Keep only the latest event per key, in first-seen key order. Every step
+     * after this works from the latest state, so earlier events in the same
+     * batch add nothing.
+     */
+    private static List<AsyncEvent> conflate(List<AsyncEvent> events) {
+        Map<Object, AsyncEvent> latest = new LinkedHashMap<>();
+        for (AsyncEvent event : events) {
+            latest.put(event.getKey(), event);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Count a failed attempt for the event.
+     *
+     * @return true if the event has now failed maxAttempts times and was moved
+     *         to the dead-letter region, false if the batch should be retried
+     */
+    private boolean recordFailure(AsyncEvent event, Exception error) {
+        String key = String.valueOf(event.getKey());
+        String sequenceId = String.valueOf(event.getEventSequenceID());
+        FailureRecord record = failures.compute(key, (k, existing) ->
+            existing != null && existing.sequenceId.equals(sequenceId)
+                ? existing.nextAttempt()
+                : new FailureRecord(sequenceId));
+
+        if (record.attempts < maxAttempts) {
+            log.warn("[AsyncEventListener] Event for key {} failed (attempt {}/{})", key, record.attempts, maxAttempts);
+            return false;
+        }
+
+        try {
+            deadLetter(event, error, record);
+        } catch (Exception e) {
+            // Without a dead-letter copy the event must stay in the queue
+            log.error("[AsyncEventListener] Could not dead-letter event for key {}: {}", key, e.getMessage());
+            return false;
+        }
+        failures.remove(key);
+        deadLettered.add(eventId(event));
+        deadLetterCount.incrementAndGet();
+        log.error("[AsyncEventListener] Event for key {} moved to {} after {} attempts: {}",
+            key, DeadLetterEvent.REGION_NAME, record.attempts, error.getMessage());
         return true;
     }
 
+    private static String eventId(AsyncEvent event) {
+        return event.getKey() + "|" + event.getEventSequenceID();
+    }
+
+    private void deadLetter(AsyncEvent event, Exception error, FailureRecord record) {
+        Object value;
+        String description;
+        try {
+            value = AccountChange.currentValue(event);
+            description = String.valueOf(value);
+        } catch (Exception e) {
+            value = null;
+            description = "undeserializable value: " + e.getMessage();
+        }
+
+        DeadLetterEvent deadLetter = DeadLetterEvent.builder()
+            .key(String.valueOf(event.getKey()))
+            .operation(String.valueOf(event.getOperation()))
+            .eventSequenceId(record.sequenceId)
+            .value(AccountPdxReader.toAccount(value))
+            .valueDescription(description)
+            .error(error.getClass().getSimpleName() + ": " + error.getMessage())
+            .attempts(record.attempts)
+            .firstFailedAt(record.firstFailedAt)
+            .lastFailedAt(LocalDateTime.now())
+            .member(memberName())
+            .build();
+
+        getOrCreateRegion(DeadLetterEvent.REGION_NAME).put(deadLetter.getKey() + "|" + record.sequenceId, deadLetter);
+    }
+
     private void processEvent(AsyncEvent event) {
         String key = (String) event.getKey();
-        Account account = (Account) event.getDeserializedValue();
+        // A PdxInstance when the server runs with read-serialized=true
+        Account account = AccountPdxReader.toAccount(AccountChange.currentValue(event));
         Operation operation = event.getOperation();
 
         log.debug("[AsyncEventListener] Event - Op: {}, Key: {}, Account: {}",
@@ -98,12 +440,244 @@ public class AccountAsyncEventListener implements AsyncEventListener {
         // analyticsService.trackAccountDeletion(key);
     }
 
+    /**
+     * Start aggregate publishing on the first batch, once the queue this
+     * listener belongs to is known.
+     */
+    private synchronized void ensureStarted(List<AsyncEvent> events) {
+        if (workers == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+                Thread thread = new Thread(runnable, "account-async-worker-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            aggregates = new PartitionAggregate[workerThreads];
+            for (int i = 0; i < workerThreads; i++) {
+                aggregates[i] = new PartitionAggregate();
+            }
+        }
+        if (aggregateKey != null || events.isEmpty()) {
+            return;
+        }
+        if (cache == null) {
+            cache = (Cache) events.get(0).getRegion().getRegionService();
+        }
+
+        partitionStats = new PartitionStats[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            partitionStats[i] = new PartitionStats(cache.getDistributedSystem(), i);
+        }
+
+        AsyncEventQueue queue = cache.getAsyncEventQueues().stream()
+            .filter(q -> q.getAsyncEventListener() == this)
+            .findFirst()
+            .orElse(null);
+        boolean parallel = queue != null && queue.isParallel();
+        aggregateKey = parallel || queue == null
+            ? "member:" + memberName()
+            : "queue:" + queue.getId();
+
+        if (reconcileIntervalSeconds > 0) {
+            reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-aggregate-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Region<String, Object> accounts = events.get(0).getRegion();
+            // First run right away: the aggregates start empty and only see changes from here on
+            reconciler.scheduleWithFixedDelay(() -> reconcile(accounts, parallel),
+                0, reconcileIntervalSeconds, TimeUnit.SECONDS);
+        }
+        log.info("[AsyncEventListener] Publishing aggregates as {} (reconcile every {}s)",
+            aggregateKey, reconcileIntervalSeconds);
+    }
+
+    /**
+     * Recount the data this listener is responsible for. The scan fills fresh
+     * per-partition trackers without holding any lock, so event processing
+     * carries on; see PartitionAggregate for how changes made meanwhile are kept.
+     */
+    private void reconcile(Region<String, Object> accounts, boolean parallel) {
+        try {
+            Region<String, Object> scope = parallel && PartitionRegionHelper.isPartitionedRegion(accounts)
+                ? PartitionRegionHelper.getLocalPrimaryData(accounts)
+                : accounts;
+
+            AccountAggregateTracker[] scanned = new AccountAggregateTracker[aggregates.length];
+            for (int i = 0; i < scanned.length; i++) {
+                scanned[i] = new AccountAggregateTracker();
+            }
+            long startedAt = System.currentTimeMillis();
+            for (PartitionAggregate aggregate : aggregates) {
+                aggregate.beginScan(startedAt);
+            }
+            BigDecimal drift = BigDecimal.ZERO;
+            try {
+                for (Map.Entry<String, Object> entry : scope.entrySet()) {
+                    scanned[partitionOf(entry.getKey())].add(entry.getValue());
+                }
+                for (int i = 0; i < aggregates.length; i++) {
+                    drift = drift.add(aggregates[i].endScan(scanned[i]));
+                }
+            } finally {
+                for (PartitionAggregate aggregate : aggregates) {
+                    aggregate.abortScan();
+                }
+            }
+            reconciledAt = LocalDateTime.now();
+
+            if (drift.signum() != 0) {
+                log.warn("[AsyncEventListener] Aggregate drift corrected: total balance off by {}", drift);
+            }
+            warnIfUntracked();
+            publishAggregate();
+            removeDepartedMembers();
+        } catch (Exception e) {
+            log.error("[AsyncEventListener] Aggregate reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private void warnIfUntracked() {
+        long untracked = 0;
+        for (PartitionAggregate aggregate : aggregates) {
+            untracked += aggregate.getEventsUntracked();
+        }
+        if (untracked > 0 && !untrackedWarned) {
+            untrackedWarned = true;
+            log.warn("[AsyncEventListener] {} updates/destroys arrived without their previous state and wait for "
+                + "reconciliation; configure {} on the queue and {} on the region",
+                untracked, AccountChangeSubstitutionFilter.class.getSimpleName(),
+                AccountPreviousValueWriter.class.getSimpleName());
+        }
+    }
+
+    private void publishAggregate() {
+        if (aggregateKey == null) {
+            return;
+        }
+        AccountAggregateTracker combined = new AccountAggregateTracker();
+        long eventsApplied = 0;
+        for (PartitionAggregate aggregate : aggregates) {
+            eventsApplied += aggregate.addTo(combined);
+        }
+        AccountAggregate snapshot = combined.snapshot(memberName(), eventsApplied, reconciledAt);
+        try {
+            aggregateRegion().put(aggregateKey, snapshot);
+        } catch (Exception e) {
+            // Aggregates are best effort; the next batch or reconciliation republishes
+            log.warn("[AsyncEventListener] Could not publish aggregates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop entries published by members that have left, whose data is now
+     * counted by the members that took over their buckets.
+     */
+    private void removeDepartedMembers() {
+        Set<String> members = new HashSet<>();
+        members.add(memberName());
+        cache.getDistributedSystem().getAllOtherMembers().forEach(m -> members.add(m.getName()));
+
+        Region<String, AccountAggregate> region = aggregateRegion();
+        for (String key : new HashSet<>(region.keySet())) {
+            if (key.startsWith("member:") && !members.contains(key.substring("member:".length()))) {
+                region.remove(key);
+                log.info("[AsyncEventListener] Removed aggregates of departed member {}", key);
+            }
+        }
+    }
+
+    private Region<String, AccountAggregate> aggregateRegion() {
+        return getOrCreateRegion(AccountAggregate.REGION_NAME);
+    }
+
+    // Normally created by the region scripts; created on this member if missing
+    private <V> Region<String, V> getOrCreateRegion(String name) {
+        Region<String, V> region = cache.getRegion(name);
+        if (region == null) {
+            synchronized (this) {
+                region = cache.getRegion(name);
+                if (region == null) {
+                    region = cache.<String, V>createRegionFactory(RegionShortcut.REPLICATE).create(name);
+                }
+            }
+        }
+        return region;
+    }
+
+    private String memberName() {
+        DistributedMember member = cache.getDistributedSystem().getDistributedMember();
+        return member.getName() != null && !member.getName().isEmpty() ? member.getName() : member.getId();
+    }
+
     @Override
     public void close() {
-        log.info("[AsyncEventListener] Closed. Total events processed: {}, Batches: {}",
-            processedCount.get(), batchCount.get());
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writeBehind != null) {
+            long written = 0;
+            long skipped = 0;
+            for (AccountWriteBehindSink sink : writeBehind) {
+                written += sink.getRowsWritten();
+                skipped += sink.getRowsSkipped();
+                sink.close();
+            }
+            log.info("[AsyncEventListener] Write-behind rows written: {}, skipped on retry: {}", written, skipped);
+        }
+        if (partitionStats != null) {
+            for (int i = 0; i < partitionStats.length; i++) {
+                PartitionStats stats = partitionStats[i];
+                log.info("[AsyncEventListener] Partition {}: {} events in {} slices, {} ms",
+                    i, stats.getEvents(), stats.getBatches(), TimeUnit.NANOSECONDS.toMillis(stats.getProcessingTimeNanos()));
+                stats.close();
+            }
+        }
+        log.info("[AsyncEventListener] Closed. Total events processed: {}, Batches: {}, Conflated: {}, Dead-lettered: {}",
+            processedCount.get(), batchCount.get(), conflatedCount.get(), deadLetterCount.get());
     }
 
     public long getProcessedCount() { return processedCount.get(); }
     public long getBatchCount() { return batchCount.get(); }
+    public long getConflatedCount() { return conflatedCount.get(); }
+    public long getDeadLetterCount() { return deadLetterCount.get(); }
+
+    private static final class PartitionResult {
+        final boolean retry;
+        final SQLException storeFailure;
+
+        PartitionResult(boolean retry, SQLException storeFailure) {
+            this.retry = retry;
+            this.storeFailure = storeFailure;
+        }
+    }
+
+    private static final class FailureRecord {
+        final String sequenceId;
+        final int attempts;
+        final LocalDateTime firstFailedAt;
+
+        FailureRecord(String sequenceId) {
+            this(sequenceId, 1, LocalDateTime.now());
+        }
+
+        private FailureRecord(String sequenceId, int attempts, LocalDateTime firstFailedAt) {
+            this.sequenceId = sequenceId;
+            this.attempts = attempts;
+            this.firstFailedAt = firstFailedAt;
+        }
+
+        FailureRecord nextAttempt() {
+            return new FailureRecord(sequenceId, attempts + 1, firstFailedAt);
+        }
+    }
 }
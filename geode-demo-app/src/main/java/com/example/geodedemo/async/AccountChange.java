@@ -0,0 +1,167 @@
+package com.example.geodedemo.async;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import org.apache.geode.DataSerializable;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.asyncqueue.AsyncEvent;
+import org.apache.geode.pdx.PdxInstance;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Queued form of a change to an Accounts entry.
+ *
+ * AsyncEvents carry only the new value, so AccountChangeSubstitutionFilter
+ * queues this instead: the new value as stored, plus the balance, type and
+ * status the entry had before (captured by AccountPreviousValueWriter) and
+ * when the change was made. The aggregates can then apply the difference
+ * without remembering every key.
+ *
+ * Events queued without the filter are read with from(AsyncEvent) as well;
+ * their previous state is only known for creates.
+ */
+public class AccountChange implements DataSerializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Changes without a timestamp count as made after any reconciliation scan
+    static final long UNKNOWN_TIME = Long.MAX_VALUE;
+
+    private Object value;
+    private boolean previousKnown;
+    private boolean previousPresent;
+    private BigDecimal previousBalance;
+    private Account.AccountType previousType;
+    private Account.AccountStatus previousStatus;
+    private long changedAt;
+
+    public AccountChange() {
+    }
+
+    static AccountChange of(EntryEvent<?, ?> event) {
+        AccountChange change = new AccountChange();
+        change.changedAt = System.currentTimeMillis();
+        if (!event.getOperation().isDestroy()) {
+            change.value = event.getNewValue();
+        }
+        // Taken for creates too, so nothing stale is left on the thread
+        Object previous = AccountPreviousValueWriter.take(event.getKey());
+        if (event.getOperation().isCreate()) {
+            change.previousKnown = true;
+        } else {
+            // Null when the writer did not see the old value
+            change.setPrevious(previous);
+        }
+        return change;
+    }
+
+    /**
+     * The change an event stands for, whether or not the filter substituted it.
+     */
+    static AccountChange from(AsyncEvent<?, ?> event) {
+        Object queued = event.getDeserializedValue();
+        if (queued instanceof AccountChange) {
+            return (AccountChange) queued;
+        }
+        AccountChange change = new AccountChange();
+        change.changedAt = UNKNOWN_TIME;
+        change.value = event.getOperation().isDestroy() ? null : queued;
+        change.previousKnown = event.getOperation().isCreate();
+        return change;
+    }
+
+    /**
+     * New value of an event (an Account or PdxInstance), or null for a destroy.
+     */
+    static Object currentValue(AsyncEvent<?, ?> event) {
+        Object queued = event.getDeserializedValue();
+        return queued instanceof AccountChange ? ((AccountChange) queued).value : queued;
+    }
+
+    private void setPrevious(Object previous) {
+        if (previous instanceof PdxInstance) {
+            PdxInstance pdx = (PdxInstance) previous;
+            setPrevious(AccountPdxReader.balance(pdx), AccountPdxReader.accountType(pdx), AccountPdxReader.status(pdx));
+        } else if (previous instanceof Account) {
+            Account account = (Account) previous;
+            setPrevious(account.getBalance(), account.getAccountType(), account.getStatus());
+        }
+    }
+
+    private void setPrevious(BigDecimal balance, Account.AccountType type, Account.AccountStatus status) {
+        previousKnown = true;
+        previousPresent = true;
+        previousBalance = balance;
+        previousType = type;
+        previousStatus = status;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    /**
+     * Whether the entry's state before this change is known; false when an
+     * update or destroy was queued without its old value.
+     */
+    boolean isPreviousKnown() {
+        return previousKnown;
+    }
+
+    /**
+     * Whether the entry existed before this change (only meaningful when known).
+     */
+    boolean isPreviousPresent() {
+        return previousPresent;
+    }
+
+    BigDecimal getPreviousBalance() {
+        return previousBalance;
+    }
+
+    Account.AccountType getPreviousType() {
+        return previousType;
+    }
+
+    Account.AccountStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    long getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+        DataSerializer.writeObject(value, out);
+        out.writeBoolean(previousKnown);
+        out.writeBoolean(previousPresent);
+        DataSerializer.writeObject(previousBalance, out);
+        DataSerializer.writeString(previousType != null ? previousType.name() : null, out);
+        DataSerializer.writeString(previousStatus != null ? previousStatus.name() : null, out);
+        out.writeLong(changedAt);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+        value = DataSerializer.readObject(in);
+        previousKnown = in.readBoolean();
+        previousPresent = in.readBoolean();
+        previousBalance = DataSerializer.readObject(in);
+        String type = DataSerializer.readString(in);
+        previousType = type != null ? Account.AccountType.valueOf(type) : null;
+        String status = DataSerializer.readString(in);
+        previousStatus = status != null ? Account.AccountStatus.valueOf(status) : null;
+        changedAt = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "AccountChange[value=" + value + ", previousBalance=" + previousBalance + "]";
+    }
+}
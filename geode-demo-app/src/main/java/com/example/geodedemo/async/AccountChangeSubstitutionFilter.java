@@ -0,0 +1,24 @@
+package com.example.geodedemo.async;
+
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.wan.GatewayEventSubstitutionFilter;
+
+/**
+ * Queues an AccountChange in place of the new value, with the entry's
+ * previous state as kept by AccountPreviousValueWriter.
+ *
+ * Configure it on the queue feeding AccountAsyncEventListener, and the writer
+ * on the Accounts region:
+ * create async-event-queue ... --gateway-event-substitution-filter=com.example.geodedemo.async.AccountChangeSubstitutionFilter
+ */
+public class AccountChangeSubstitutionFilter implements GatewayEventSubstitutionFilter<String, Object> {
+
+    @Override
+    public Object getSubstituteValue(EntryEvent<String, Object> event) {
+        return AccountChange.of(event);
+    }
+
+    @Override
+    public void close() {
+    }
+}
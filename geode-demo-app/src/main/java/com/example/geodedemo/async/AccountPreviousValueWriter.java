@@ -0,0 +1,65 @@
+package com.example.geodedemo.async;
+
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.util.CacheWriterAdapter;
+
+/**
+ * CacheWriter for the Accounts region that keeps the value an entry held
+ * before an update or destroy, for AccountChangeSubstitutionFilter.
+ *
+ * The filter cannot read it itself: the queue hands it a copy of the event
+ * made without the old value. The writer runs on the primary in the same
+ * thread that then queues the event, so the old value is handed over in a
+ * thread local and taken back by key. Where that does not hold (redundant
+ * copies, transactions committed elsewhere) the previous state stays
+ * unknown and the next reconciliation accounts for the change.
+ *
+ * Configure it on the region together with the filter on the queue:
+ * create region --name=Accounts ... --cache-writer=com.example.geodedemo.async.AccountPreviousValueWriter
+ */
+public class AccountPreviousValueWriter extends CacheWriterAdapter<String, Object> {
+
+    private static final ThreadLocal<PreviousValue> PENDING = new ThreadLocal<>();
+
+    @Override
+    public void beforeUpdate(EntryEvent<String, Object> event) {
+        hold(event);
+    }
+
+    @Override
+    public void beforeDestroy(EntryEvent<String, Object> event) {
+        hold(event);
+    }
+
+    private static void hold(EntryEvent<String, Object> event) {
+        Object previous = event.getOldValue();
+        if (previous != null) {
+            PENDING.set(new PreviousValue(event.getKey(), previous));
+        } else {
+            PENDING.remove();
+        }
+    }
+
+    /**
+     * The value held by this thread's last write to key, or null if the
+     * writer did not see it. Clears what was held either way.
+     */
+    static Object take(Object key) {
+        PreviousValue pending = PENDING.get();
+        if (pending == null) {
+            return null;
+        }
+        PENDING.remove();
+        return pending.key.equals(key) ? pending.value : null;
+    }
+
+    private static final class PreviousValue {
+        private final Object key;
+        private final Object value;
+
+        private PreviousValue(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
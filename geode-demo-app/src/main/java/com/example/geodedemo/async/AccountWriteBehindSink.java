@@ -0,0 +1,319 @@
+package com.example.geodedemo.async;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.asyncqueue.AsyncEvent;
+import org.apache.geode.cache.wan.EventSequenceID;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind of Account changes to a relational store over plain JDBC.
+ *
+ * Each AsyncEvent batch is coalesced to the latest state per key, then
+ * written as batched upserts and deletes, committed in chunks of chunkSize
+ * rows. Upserts and deletes by key are idempotent.
+ *
+ * The sink remembers which event it last wrote for each key. When a chunk
+ * fails, the listener returns false and Geode redelivers the batch; on that
+ * retry, keys already committed by an earlier chunk are skipped, so only the
+ * unwritten part of the batch goes to the database again.
+ *
+ * A chunk rejected by the database (as opposed to a lost connection) is
+ * retried row by row, so one bad row is isolated and reported back instead
+ * of failing every row committed alongside it.
+ *
+ * The upsert uses H2's MERGE ... KEY syntax; other databases need their own
+ * upsert statement.
+ */
+@Slf4j
+class AccountWriteBehindSink implements AutoCloseable {
+
+    // Account ids are "<customerId>|<UUID>" (Account.newAccountId), 73 characters with
+    // generated customer ids; keep the id columns well above that
+    private static final int ID_COLUMN_LENGTH = 128;
+
+    private static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS accounts ("
+            + "account_id VARCHAR(" + ID_COLUMN_LENGTH + ") PRIMARY KEY, "
+            + "customer_id VARCHAR(" + ID_COLUMN_LENGTH + "), "
+            + "account_number VARCHAR(64), "
+            + "account_type VARCHAR(16), "
+            + "balance DECIMAL(19, 4), "
+            + "credit_limit DECIMAL(19, 4), "
+            + "status VARCHAR(16), "
+            + "created_at TIMESTAMP, "
+            + "updated_at TIMESTAMP)";
+
+    // Tables created with the former VARCHAR(64) id columns
+    private static final String[] WIDEN_ID_COLUMNS = {
+        "ALTER TABLE accounts ALTER COLUMN account_id SET DATA TYPE VARCHAR(" + ID_COLUMN_LENGTH + ")",
+        "ALTER TABLE accounts ALTER COLUMN customer_id SET DATA TYPE VARCHAR(" + ID_COLUMN_LENGTH + ")"
+    };
+
+    private static final String UPSERT =
+        "MERGE INTO accounts (account_id, customer_id, account_number, account_type, balance, "
+            + "credit_limit, status, created_at, updated_at) KEY (account_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE = "DELETE FROM accounts WHERE account_id = ?";
+
+    // Bounded memory of the last written event per key, enough to cover a retried batch
+    private static final int MAX_TRACKED_KEYS = 100_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int chunkSize;
+
+    private final Map<String, EventSequenceID> lastWritten = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EventSequenceID> eldest) {
+            return size() > MAX_TRACKED_KEYS;
+        }
+    };
+
+    private Connection connection;
+    private long rowsWritten;
+    private long rowsSkipped;
+
+    AccountWriteBehindSink(String url, String user, String password, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Write-behind chunk size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * A row the database refused, with the event it came from.
+     */
+    static final class Rejected {
+        final AsyncEvent event;
+        final SQLException error;
+
+        Rejected(AsyncEvent event, SQLException error) {
+            this.event = event;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Write the latest state of every key in the batch.
+     *
+     * @return rows the database rejected; everything else is committed
+     * @throws SQLException if the database could not be reached; earlier chunks stay committed
+     */
+    synchronized List<Rejected> write(List<AsyncEvent> events) throws SQLException {
+        List<Rejected> rejected = new ArrayList<>();
+        List<Pending> pending = new ArrayList<>();
+        for (Pending change : coalesce(events).values()) {
+            if (change.sequenceId != null && change.sequenceId.equals(lastWritten.get(change.key))) {
+                rowsSkipped++;
+            } else {
+                pending.add(change);
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Pending> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                writeChunk(chunk);
+            } catch (SQLException e) {
+                if (isConnectionFailure(e)) {
+                    throw e;
+                }
+                rejected.addAll(isolate(chunk, e));
+            }
+        }
+        return rejected;
+    }
+
+    long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeConnection();
+    }
+
+    /**
+     * Latest change per key (the last event wins), in first-seen key order.
+     */
+    private static Map<String, Pending> coalesce(List<AsyncEvent> events) {
+        Map<String, Pending> latest = new LinkedHashMap<>();
+        for (AsyncEvent event : events) {
+            if (!(event.getKey() instanceof String)) {
+                continue;
+            }
+            String key = (String) event.getKey();
+            if (event.getOperation().isDestroy()) {
+                latest.put(key, new Pending(key, null, event));
+            } else if (event.getOperation().isCreate() || event.getOperation().isUpdate()) {
+                // A PdxInstance when the server runs with read-serialized=true
+                Account account = AccountPdxReader.toAccount(AccountChange.currentValue(event));
+                if (account != null) {
+                    latest.put(key, new Pending(key, account, event));
+                }
+            }
+        }
+        return latest;
+    }
+
+    private void writeChunk(List<Pending> chunk) throws SQLException {
+        Connection conn = connection();
+        try (PreparedStatement upsert = conn.prepareStatement(UPSERT);
+             PreparedStatement delete = conn.prepareStatement(DELETE)) {
+            int upserts = 0;
+            int deletes = 0;
+            for (Pending change : chunk) {
+                if (change.account != null) {
+                    bindUpsert(upsert, change.key, change.account);
+                    upsert.addBatch();
+                    upserts++;
+                } else {
+                    delete.setString(1, change.key);
+                    delete.addBatch();
+                    deletes++;
+                }
+            }
+            if (upserts > 0) {
+                upsert.executeBatch();
+            }
+            if (deletes > 0) {
+                delete.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            // The connection may be broken; reopen it on the next attempt
+            closeConnection();
+            throw e;
+        }
+
+        for (Pending change : chunk) {
+            if (change.sequenceId != null) {
+                lastWritten.put(change.key, change.sequenceId);
+            }
+        }
+        rowsWritten += chunk.size();
+    }
+
+    /**
+     * Retry a rejected chunk one row per transaction and return the rows that still fail.
+     */
+    private List<Rejected> isolate(List<Pending> chunk, SQLException chunkError) throws SQLException {
+        if (chunk.size() == 1) {
+            return List.of(new Rejected(chunk.get(0).event, chunkError));
+        }
+        log.warn("[WriteBehind] Chunk of {} rows rejected, isolating bad rows: {}", chunk.size(), chunkError.getMessage());
+
+        List<Rejected> rejected = new ArrayList<>();
+        for (Pending row : chunk) {
+            try {
+                writeChunk(List.of(row));
+            } catch (SQLException e) {
+                if (isConnectionFailure(e)) {
+                    throw e;
+                }
+                rejected.add(new Rejected(row.event, e));
+            }
+        }
+        return rejected;
+    }
+
+    private static void bindUpsert(PreparedStatement statement, String key, Account account) throws SQLException {
+        statement.setString(1, key);
+        statement.setString(2, account.getCustomerId());
+        statement.setString(3, account.getAccountNumber());
+        statement.setString(4, account.getAccountType() != null ? account.getAccountType().name() : null);
+        statement.setBigDecimal(5, account.getBalance());
+        statement.setBigDecimal(6, account.getCreditLimit());
+        statement.setString(7, account.getStatus() != null ? account.getStatus().name() : null);
+        if (account.getCreatedAt() != null) {
+            statement.setTimestamp(8, Timestamp.valueOf(account.getCreatedAt()));
+        } else {
+            statement.setNull(8, Types.TIMESTAMP);
+        }
+        if (account.getUpdatedAt() != null) {
+            statement.setTimestamp(9, Timestamp.valueOf(account.getUpdatedAt()));
+        } else {
+            statement.setNull(9, Types.TIMESTAMP);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url, user, password);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+                for (String widen : WIDEN_ID_COLUMNS) {
+                    statement.execute(widen);
+                }
+            }
+            connection.commit();
+            log.info("[WriteBehind] Connected to {}", url);
+        }
+        return connection;
+    }
+
+    // SQLState class 08 is "connection exception"
+    private static boolean isConnectionFailure(SQLException e) {
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+            || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            log.debug("[WriteBehind] Rollback failed: {}", e.getMessage());
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("[WriteBehind] Close failed: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private static final class Pending {
+        final String key;
+        final Account account;
+        final AsyncEvent event;
+        final EventSequenceID sequenceId;
+
+        Pending(String key, Account account, AsyncEvent event) {
+            this.key = key;
+            this.account = account;
+            this.event = event;
+            this.sequenceId = event.getEventSequenceID();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.geodedemo.async;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An async event that failed processing too many times and was moved out of
+ * the queue so it no longer blocks later events. Stored in the
+ * AccountEventsDeadLetter region for inspection and manual replay.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String REGION_NAME = "AccountEventsDeadLetter";
+
+    private String key;
+    private String operation;
+    private String eventSequenceId;
+    // Null when the value itself could not be deserialized
+    private Object value;
+    private String valueDescription;
+    private String error;
+    private int attempts;
+    private LocalDateTime firstFailedAt;
+    private LocalDateTime lastFailedAt;
+    private String member;
+}
@@ -0,0 +1,90 @@
+package com.example.geodedemo.async;
+
+import org.apache.geode.cache.asyncqueue.AsyncEvent;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Aggregates of one AccountAsyncEventListener worker partition (the keys
+ * hashing to it). Partitions are independent, so workers never wait on one
+ * another; readers combine them.
+ *
+ * Reconciliation scans without holding the lock:
+ * - beginScan(t): from here, changes made at or after t are also collected aside
+ * - the scan fills a fresh tracker from the region
+ * - endScan: the scan plus the changes collected aside becomes the new state,
+ *   and changes made before t that are still queued are skipped when they
+ *   arrive, since the scan already saw them
+ * Changes made while the scan runs may still be counted twice or not at all
+ * until the next reconciliation.
+ */
+class PartitionAggregate {
+
+    private AccountAggregateTracker live = new AccountAggregateTracker();
+    // Changes made since the running scan started; null when no scan runs
+    private AccountAggregateTracker sinceScan;
+    private long scanStartedAt;
+    // Changes made before this are part of the last scan
+    private long baselineAt = Long.MIN_VALUE;
+    private long eventsApplied;
+    private long eventsUntracked;
+
+    /**
+     * Apply every event of a successfully processed batch slice, in order.
+     */
+    synchronized void apply(List<AsyncEvent> events) {
+        for (AsyncEvent event : events) {
+            AccountChange change = AccountChange.from(event);
+            if (change.getChangedAt() < baselineAt) {
+                continue;
+            }
+            if (!live.apply(change)) {
+                // Previous state not queued; only reconciliation can account for it
+                eventsUntracked++;
+                continue;
+            }
+            if (sinceScan != null && change.getChangedAt() >= scanStartedAt) {
+                sinceScan.apply(change);
+            }
+            eventsApplied++;
+        }
+    }
+
+    synchronized void beginScan(long startedAt) {
+        scanStartedAt = startedAt;
+        sinceScan = new AccountAggregateTracker();
+    }
+
+    /**
+     * Replace the state with a finished scan.
+     *
+     * @return the change in total balance, i.e. the drift corrected
+     */
+    synchronized BigDecimal endScan(AccountAggregateTracker scanned) {
+        BigDecimal before = live.getTotalBalance();
+        scanned.combine(sinceScan);
+        live = scanned;
+        baselineAt = scanStartedAt;
+        sinceScan = null;
+        return live.getTotalBalance().subtract(before);
+    }
+
+    synchronized void abortScan() {
+        sinceScan = null;
+    }
+
+    /**
+     * Add this partition's state to target.
+     *
+     * @return events applied so far
+     */
+    synchronized long addTo(AccountAggregateTracker target) {
+        target.combine(live);
+        return eventsApplied;
+    }
+
+    synchronized long getEventsUntracked() {
+        return eventsUntracked;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.geodedemo.async;
+
+import org.apache.geode.StatisticDescriptor;
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsFactory;
+import org.apache.geode.StatisticsType;
+
+/**
+ * Geode statistics for one AccountAsyncEventListener worker partition.
+ *
+ * One "AccountAsyncPartitionStats" instance per partition, named
+ * partition-N, so they show up per partition in the statistics archive
+ * (VSD) alongside the member's built-in queue statistics:
+ * - events / batches / failures: counters, rate = throughput
+ * - processingTime: total nanoseconds spent, / batches = mean latency
+ * - lastBatchTime, maxBatchTime: nanoseconds for the latest and slowest batch slice
+ */
+class PartitionStats {
+
+    static final String TYPE_NAME = "AccountAsyncPartitionStats";
+
+    private static final String EVENTS = "events";
+    private static final String BATCHES = "batches";
+    private static final String FAILURES = "failures";
+    private static final String PROCESSING_TIME = "processingTime";
+    private static final String LAST_BATCH_TIME = "lastBatchTime";
+    private static final String MAX_BATCH_TIME = "maxBatchTime";
+
+    private final Statistics stats;
+    private final int eventsId;
+    private final int batchesId;
+    private final int failuresId;
+    private final int processingTimeId;
+    private final int lastBatchTimeId;
+    private final int maxBatchTimeId;
+
+    PartitionStats(StatisticsFactory factory, int partition) {
+        StatisticsType type = type(factory);
+        this.stats = factory.createAtomicStatistics(type, "partition-" + partition);
+        this.eventsId = type.nameToId(EVENTS);
+        this.batchesId = type.nameToId(BATCHES);
+        this.failuresId = type.nameToId(FAILURES);
+        this.processingTimeId = type.nameToId(PROCESSING_TIME);
+        this.lastBatchTimeId = type.nameToId(LAST_BATCH_TIME);
+        this.maxBatchTimeId = type.nameToId(MAX_BATCH_TIME);
+    }
+
+    void record(int events, int failures, long nanos) {
+        stats.incLong(eventsId, events);
+        stats.incLong(batchesId, 1);
+        stats.incLong(failuresId, failures);
+        stats.incLong(processingTimeId, nanos);
+        stats.setLong(lastBatchTimeId, nanos);
+        if (nanos > stats.getLong(maxBatchTimeId)) {
+            stats.setLong(maxBatchTimeId, nanos);
+        }
+    }
+
+    long getEvents() {
+        return stats.getLong(eventsId);
+    }
+
+    long getBatches() {
+        return stats.getLong(batchesId);
+    }
+
+    long getProcessingTimeNanos() {
+        return stats.getLong(processingTimeId);
+    }
+
+    void close() {
+        stats.close();
+    }
+
+    private static synchronized StatisticsType type(StatisticsFactory factory) {
+        StatisticsType existing = factory.findType(TYPE_NAME);
+        if (existing != null) {
+            return existing;
+        }
+        return factory.createType(TYPE_NAME, "Per-partition processing of AccountAsyncEventListener batches",
+            new StatisticDescriptor[] {
+                factory.createLongCounter(EVENTS, "Events processed", "events"),
+                factory.createLongCounter(BATCHES, "Batch slices processed", "batches"),
+                factory.createLongCounter(FAILURES, "Events that failed processing or were rejected by the store", "events"),
+                factory.createLongCounter(PROCESSING_TIME, "Time spent processing batch slices", "nanoseconds"),
+                factory.createLongGauge(LAST_BATCH_TIME, "Time spent on the latest batch slice", "nanoseconds"),
+                factory.createLongGauge(MAX_BATCH_TIME, "Time spent on the slowest batch slice", "nanoseconds")
+            });
+    }
+}
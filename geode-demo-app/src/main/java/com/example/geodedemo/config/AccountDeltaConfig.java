@@ -0,0 +1,86 @@
+package com.example.geodedemo.config;
+
+import com.example.geodedemo.delta.AccountDeltaStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.gemfire.config.annotation.ClientCacheConfigurer;
+
+import java.util.Properties;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Delta propagation of Account balance updates.
+ *
+ * Account implements Delta, and credit()/debit() mark it changed. With this
+ * enabled the client's delta-propagation property is on, so a put after a
+ * deposit, withdrawal or transfer sends the delta to the server, which
+ * applies it and forwards deltas to redundant copies. Off by default; then
+ * the client always sends full values.
+ *
+ * Servers need the entity classes on their classpath to apply deltas; a
+ * server that cannot apply one asks the client for the full value instead.
+ *
+ * Enable with:
+ *   app.accounts.delta.enabled=true
+ */
+@Slf4j
+@Configuration
+public class AccountDeltaConfig {
+
+    private static final String DELTA_PROPAGATION = "delta-propagation";
+
+    @Value("${app.accounts.delta.enabled:false}")
+    private boolean deltaEnabled;
+
+    @Bean
+    public ClientCacheConfigurer accountDeltaPropagationConfigurer() {
+        return (beanName, clientCache) -> {
+            Properties properties = clientCache.getProperties() != null ? clientCache.getProperties() : new Properties();
+            properties.setProperty(DELTA_PROPAGATION, String.valueOf(deltaEnabled));
+            clientCache.setProperties(properties);
+            log.info("Account delta propagation {}", deltaEnabled ? "enabled" : "disabled");
+        };
+    }
+
+    /**
+     * Full-value vs delta bytes for balance updates (see AccountDeltaStats).
+     */
+    @Bean
+    public MeterBinder accountDeltaMetrics() {
+        return registry -> {
+            Gauge.builder("geode.account.delta.enabled", () -> deltaEnabled ? 1 : 0)
+                .description("Whether Account balance updates are sent as deltas (1) or full values (0)")
+                .register(registry);
+
+            counter("geode.account.update.bytes", "full", s -> AccountDeltaStats.getFullValueBytes(),
+                "Estimated serialized size of the full Account value for balance updates")
+                .baseUnit("bytes")
+                .register(registry);
+
+            counter("geode.account.update.bytes", "delta", s -> AccountDeltaStats.getDeltaBytes(),
+                "Bytes of Account deltas sent")
+                .baseUnit("bytes")
+                .register(registry);
+
+            counter("geode.account.updates", "full", s -> AccountDeltaStats.getFullValues(),
+                "Balance updates sized as full values")
+                .register(registry);
+
+            counter("geode.account.updates", "delta", s -> AccountDeltaStats.getDeltas(),
+                "Account deltas sent")
+                .register(registry);
+        };
+    }
+
+    private static FunctionCounter.Builder<Class<AccountDeltaStats>> counter(
+            String name, String payload, ToDoubleFunction<Class<AccountDeltaStats>> reader, String description) {
+        return FunctionCounter.builder(name, AccountDeltaStats.class, reader)
+            .tag("payload", payload)
+            .description(description);
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.geodedemo.config;
 
+import com.example.geodedemo.async.AccountAggregate;
 import com.example.geodedemo.entity.Account;
 import org.apache.geode.cache.GemFireCache;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.ClientRegionShortcut;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.gemfire.client.ClientRegionFactoryBean;
 import org.springframework.data.gemfire.config.annotation.ClientCacheApplication;
 import org.springframework.data.gemfire.config.annotation.EnableCachingDefinedRegions;
 import org.springframework.data.gemfire.config.annotation.EnableLogging;
@@ -20,4 +22,15 @@ public class GeodeConfig {
     public Region<String, Account> accountRegion(GemFireCache cache) {
         return cache.getRegion("Accounts");
     }
+
+    /**
+     * Materialized aggregates maintained on the servers by AccountAsyncEventListener.
+     */
+    @Bean(AccountAggregate.REGION_NAME)
+    public ClientRegionFactoryBean<String, AccountAggregate> accountAggregatesRegion(GemFireCache cache) {
+        ClientRegionFactoryBean<String, AccountAggregate> region = new ClientRegionFactoryBean<>();
+        region.setCache(cache);
+        region.setShortcut(ClientRegionShortcut.PROXY);
+        return region;
+    }
 }
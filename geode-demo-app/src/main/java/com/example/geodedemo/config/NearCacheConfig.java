@@ -0,0 +1,110 @@
+package com.example.geodedemo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.CacheStatistics;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.InterestResultPolicy;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.gemfire.client.ClientRegionFactoryBean;
+import org.springframework.data.gemfire.client.Interest;
+import org.springframework.data.gemfire.config.annotation.RegionConfigurer;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Client-side near cache for the Customers region.
+ *
+ * When enabled, Customers becomes a CACHING_PROXY region:
+ * - Reads are served from local memory after the first fetch
+ * - Local entries are bounded by LRU entry eviction (LOCAL_DESTROY)
+ * - Interest in all keys is registered without values, so the servers push
+ *   invalidations and the next read fetches the fresh copy
+ *
+ * Requires spring.data.gemfire.pool.subscription-enabled=true.
+ *
+ * Enable with:
+ *   app.near-cache.customers.enabled=true
+ *   app.near-cache.customers.max-entries=10000
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.near-cache.customers.enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    private static final String REGION_NAME = "Customers";
+
+    @Value("${app.near-cache.customers.max-entries:10000}")
+    private int maxEntries;
+
+    @Bean
+    public RegionConfigurer customersNearCacheConfigurer() {
+        return new RegionConfigurer() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public void configure(String beanName, ClientRegionFactoryBean<?, ?> bean) {
+                if (!REGION_NAME.equals(beanName)) {
+                    return;
+                }
+
+                bean.setShortcut(ClientRegionShortcut.CACHING_PROXY);
+                bean.setEvictionAttributes(
+                    EvictionAttributes.createLRUEntryAttributes(maxEntries, EvictionAction.LOCAL_DESTROY));
+                bean.setStatisticsEnabled(true);
+
+                // Invalidations only: values are fetched lazily on the next read
+                Interest<String> allKeys = new Interest<>(Interest.ALL_KEYS, InterestResultPolicy.NONE, false, false);
+                ((ClientRegionFactoryBean) bean).setInterests(new Interest[] { allKeys });
+
+                log.info("Near cache enabled for {} (max {} entries, LRU)", REGION_NAME, maxEntries);
+            }
+        };
+    }
+
+    /**
+     * Near-cache hit/miss counters and local size, read from the region's own statistics.
+     */
+    @Bean
+    public MeterBinder customersNearCacheMetrics(GemFireCache cache) {
+        return registry -> {
+            FunctionCounter.builder("geode.nearcache.gets", cache, statistic(CacheStatistics::getHitCount))
+                .tag("region", REGION_NAME)
+                .tag("result", "hit")
+                .description("Reads served from the client near cache")
+                .register(registry);
+
+            FunctionCounter.builder("geode.nearcache.gets", cache, statistic(CacheStatistics::getMissCount))
+                .tag("region", REGION_NAME)
+                .tag("result", "miss")
+                .description("Reads that went to the servers")
+                .register(registry);
+
+            Gauge.builder("geode.nearcache.size", cache, c -> {
+                    Region<?, ?> region = c.getRegion(REGION_NAME);
+                    return region != null ? region.keySet().size() : 0;
+                })
+                .tag("region", REGION_NAME)
+                .description("Entries held locally in the client near cache")
+                .register(registry);
+        };
+    }
+
+    private static ToDoubleFunction<GemFireCache> statistic(ToDoubleFunction<CacheStatistics> reader) {
+        return c -> {
+            Region<?, ?> region = c.getRegion(REGION_NAME);
+            if (region == null || !region.getAttributes().getStatisticsEnabled()) {
+                return 0;
+            }
+            return reader.applyAsDouble(region.getStatistics());
+        };
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.geodedemo.controller;
 
 import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.paging.JsonStreams;
+import com.example.geodedemo.paging.KeysetPage;
+import com.example.geodedemo.paging.KeysetPager;
 import com.example.geodedemo.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -17,6 +23,7 @@ import java.util.Map;
 public class AccountController {
 
     private final AccountService accountService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Account> createAccount(@RequestBody Account account) {
@@ -29,9 +36,33 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getAccount(accountId));
     }
 
+    /**
+     * All accounts as a JSON array, streamed page by page.
+     */
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        return ResponseEntity.ok(accountService.getAllAccounts());
+    public ResponseEntity<StreamingResponseBody> getAllAccounts() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(JsonStreams.jsonArray(objectMapper, accountService.streamAccounts(null)));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<Account>> getAccountsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + KeysetPager.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String customerId) {
+        return ResponseEntity.ok(accountService.getAccountsPage(after, size, customerId));
+    }
+
+    /**
+     * All accounts as newline-delimited JSON, one account per line.
+     */
+    @GetMapping(value = "/stream", produces = JsonStreams.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAccounts(
+            @RequestParam(required = false) String customerId) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(JsonStreams.NDJSON))
+            .body(JsonStreams.ndjson(objectMapper, accountService.streamAccounts(customerId)));
     }
 
     @GetMapping("/customer/{customerId}")
@@ -55,6 +86,19 @@ public class AccountController {
         return ResponseEntity.ok(accountService.withdraw(accountId, amount));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> applyAdjustments(
+            @RequestBody List<AccountService.Adjustment> adjustments) {
+        List<AccountService.AdjustmentResult> results = accountService.applyAdjustments(adjustments);
+        long succeeded = results.stream().filter(AccountService.AdjustmentResult::isSuccess).count();
+        return ResponseEntity.ok(Map.of(
+            "total", results.size(),
+            "succeeded", succeeded,
+            "failed", results.size() - succeeded,
+            "results", results
+        ));
+    }
+
     @PostMapping("/transfer")
     public ResponseEntity<Account> transfer(@RequestBody Map<String, Object> request) {
         String fromAccountId = (String) request.get("fromAccountId");
@@ -90,6 +90,16 @@ public class ContinuousQueryController {
         return ResponseEntity.ok(cqService.getRecentEvents(limit));
     }
 
+    /**
+     * Get event history for one account.
+     */
+    @GetMapping("/events/account/{accountId}")
+    public ResponseEntity<List<BalanceChangeEvent>> getAccountHistory(
+            @PathVariable String accountId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(cqService.getAccountHistory(accountId, limit));
+    }
+
     /**
      * Get alerts only.
      */
@@ -1,11 +1,17 @@
 package com.example.geodedemo.controller;
 
 import com.example.geodedemo.entity.Customer;
+import com.example.geodedemo.paging.JsonStreams;
+import com.example.geodedemo.paging.KeysetPage;
+import com.example.geodedemo.paging.KeysetPager;
 import com.example.geodedemo.service.CustomerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -15,6 +21,7 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Customer> createCustomer(@RequestBody Customer customer) {
@@ -27,9 +34,31 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getCustomer(customerId));
     }
 
+    /**
+     * All customers as a JSON array, streamed page by page.
+     */
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        return ResponseEntity.ok(customerService.getAllCustomers());
+    public ResponseEntity<StreamingResponseBody> getAllCustomers() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(JsonStreams.jsonArray(objectMapper, customerService.streamCustomers()));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<Customer>> getCustomersPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + KeysetPager.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(customerService.getCustomersPage(after, size));
+    }
+
+    /**
+     * All customers as newline-delimited JSON, one customer per line.
+     */
+    @GetMapping(value = "/stream", produces = JsonStreams.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(JsonStreams.NDJSON))
+            .body(JsonStreams.ndjson(objectMapper, customerService.streamCustomers()));
     }
 
     @PutMapping("/{customerId}")
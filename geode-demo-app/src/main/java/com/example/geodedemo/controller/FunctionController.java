@@ -1,12 +1,19 @@
 package com.example.geodedemo.controller;
 
+import com.example.geodedemo.async.AccountAggregate;
+import com.example.geodedemo.async.AccountAggregateService;
 import com.example.geodedemo.function.FunctionExecutionService;
+import com.example.geodedemo.paging.JsonStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * REST controller for Geode function execution.
@@ -19,6 +26,8 @@ import java.util.Map;
 public class FunctionController {
 
     private final FunctionExecutionService functionService;
+    private final AccountAggregateService aggregateService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Execute account aggregation function.
@@ -37,6 +46,21 @@ public class FunctionController {
         ));
     }
 
+    /**
+     * Stream an aggregation as NDJSON, one line per partial result merged so far.
+     * GET /api/functions/accounts/aggregate/stream?operation=SUMMARY
+     *
+     * The last line has complete=true and carries the final answer.
+     */
+    @GetMapping(value = "/accounts/aggregate/stream", produces = JsonStreams.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAggregation(
+            @RequestParam(defaultValue = "SUMMARY") String operation) {
+        log.info("Streaming aggregation function: {}", operation);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(JsonStreams.NDJSON))
+            .body(JsonStreams.ndjson(objectMapper, functionService.streamAccountAggregation(operation), 1));
+    }
+
     /**
      * Get total balance across all accounts.
      * GET /api/functions/accounts/total-balance
@@ -78,13 +102,27 @@ public class FunctionController {
 
     /**
      * Get comprehensive account summary.
-     * GET /api/functions/accounts/summary
+     * GET /api/functions/accounts/summary?live=false
+     *
+     * Served from the materialized aggregates when the servers publish them;
+     * live=true (or no published aggregates) runs the aggregation function instead.
      */
     @GetMapping("/accounts/summary")
-    public ResponseEntity<Object> getSummary() {
-        log.info("Getting account summary");
+    public ResponseEntity<Object> getSummary(@RequestParam(defaultValue = "false") boolean live) {
+        log.info("Getting account summary (live={})", live);
+        if (!live) {
+            Optional<AccountAggregate> aggregate = aggregateService.getAggregate();
+            if (aggregate.isPresent()) {
+                return ResponseEntity.ok(Map.of(
+                    "operation", "SUMMARY",
+                    "source", "materialized",
+                    "summary", aggregate.get().toSummary()
+                ));
+            }
+        }
         return ResponseEntity.ok(Map.of(
             "operation", "SUMMARY",
+            "source", "scan",
             "summary", functionService.getSummary()
         ));
     }
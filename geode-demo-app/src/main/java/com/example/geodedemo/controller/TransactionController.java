@@ -1,6 +1,7 @@
 package com.example.geodedemo.controller;
 
 import com.example.geodedemo.service.TransactionService;
+import com.example.geodedemo.service.TransactionService.BatchUpdateResult;
 import com.example.geodedemo.service.TransactionService.TransferResult;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -38,16 +39,11 @@ public class TransactionController {
     }
 
     /**
-     * Batch update multiple accounts in a single transaction.
+     * Batch update multiple accounts; all are applied or none, with an outcome per account.
      */
     @PostMapping("/batch")
-    public ResponseEntity<Map<String, Object>> batchUpdate(@RequestBody Map<String, BigDecimal> adjustments) {
-        boolean success = transactionService.batchUpdateWithTransaction(adjustments);
-
-        return ResponseEntity.ok(Map.of(
-            "success", success,
-            "accountsUpdated", adjustments.size()
-        ));
+    public ResponseEntity<BatchUpdateResult> batchUpdate(@RequestBody Map<String, BigDecimal> adjustments) {
+        return ResponseEntity.ok(transactionService.batchUpdateWithTransaction(adjustments));
     }
 
     @lombok.Data
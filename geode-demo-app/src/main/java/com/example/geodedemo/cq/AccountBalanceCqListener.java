@@ -1,6 +1,7 @@
 package com.example.geodedemo.cq;
 
 import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.metrics.GeodeMetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.Operation;
@@ -14,31 +15,48 @@ import java.util.UUID;
 /**
  * Continuous Query Listener for Account balance changes.
  * Monitors account updates and generates events for significant changes.
+ *
+ * onEvent runs on Geode's CQ delivery thread, so it only captures the new
+ * value and hands the rest of the work to the CqEventDispatcher.
+ * Events are counted on arrival; processing is timed on the worker.
  */
 @Slf4j
 @RequiredArgsConstructor
 public class AccountBalanceCqListener implements CqListener {
 
+    private static final String METRICS_SERVICE = "cq";
+
     private final EventStore eventStore;
+    private final CqEventDispatcher dispatcher;
+    private final GeodeMetricsService metrics;
     private final BigDecimal lowBalanceThreshold;
     private final BigDecimal largeTransactionThreshold;
 
     @Override
     public void onEvent(CqEvent cqEvent) {
+        metrics.recordCqEvent();
         Operation operation = cqEvent.getQueryOperation();
         Account newValue = (Account) cqEvent.getNewValue();
         // Note: CqEvent doesn't provide oldValue directly in Geode
         // We track previous balance in the event store if needed
 
-        String eventType = mapOperationType(operation);
-        log.debug("CQ Event: {} for account {}", eventType,
-            newValue != null ? newValue.getAccountId() : "unknown");
-
         if (newValue == null) {
             log.debug("Skipping event with null value");
             return;
         }
 
+        LocalDateTime receivedAt = LocalDateTime.now();
+        dispatcher.dispatch(newValue.getAccountId(),
+            () -> metrics.timeRun(METRICS_SERVICE, "process", () -> process(operation, newValue, receivedAt)));
+    }
+
+    /**
+     * Runs on a dispatcher worker; events for one account arrive here in order.
+     */
+    private void process(Operation operation, Account newValue, LocalDateTime receivedAt) {
+        String eventType = mapOperationType(operation);
+        log.debug("CQ Event: {} for account {}", eventType, newValue.getAccountId());
+
         BigDecimal newBalance = newValue.getBalance();
         // Get previous balance from event store if available
         BigDecimal oldBalance = eventStore.getLastKnownBalance(newValue.getAccountId());
@@ -56,7 +74,7 @@ public class AccountBalanceCqListener implements CqListener {
             .oldBalance(oldBalance != null ? oldBalance : BigDecimal.ZERO)
             .newBalance(newBalance)
             .changeAmount(changeAmount)
-            .timestamp(LocalDateTime.now())
+            .timestamp(receivedAt)
             .alertType(alertType)
             .build();
 
@@ -0,0 +1,152 @@
+package com.example.geodedemo.cq;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of BalanceChangeEvent payloads for the EventLog.
+ *
+ * Layout (timestamp is kept in the log record header):
+ * - accountId, customerId       : short length + UTF-8 bytes (-1 = null)
+ * - eventId                     : 1 + two longs when it is a UUID, otherwise 0 + string
+ * - eventType, alertType        : short length + UTF-8 bytes (-1 = null)
+ * - oldBalance, newBalance,
+ *   changeAmount                : byte length + unscaled two's-complement bytes + short scale (-1 = null)
+ *
+ * Decoding reads straight from the supplied buffer, which for the EventLog is
+ * a view over the memory-mapped segment.
+ */
+public final class BalanceChangeEventCodec {
+
+    private static final byte STRING_ID = 0;
+    private static final byte UUID_ID = 1;
+
+    private BalanceChangeEventCodec() {
+    }
+
+    public static void encode(BalanceChangeEvent event, ByteBuffer out) {
+        writeString(out, event.getAccountId());
+        writeString(out, event.getCustomerId());
+        writeEventId(out, event.getEventId());
+        writeString(out, event.getEventType());
+        writeString(out, event.getAlertType());
+        writeDecimal(out, event.getOldBalance());
+        writeDecimal(out, event.getNewBalance());
+        writeDecimal(out, event.getChangeAmount());
+    }
+
+    /**
+     * Decode a payload starting at the buffer's current position.
+     */
+    public static BalanceChangeEvent decode(ByteBuffer in) {
+        return BalanceChangeEvent.builder()
+            .accountId(readString(in))
+            .customerId(readString(in))
+            .eventId(readEventId(in))
+            .eventType(readString(in))
+            .alertType(readString(in))
+            .oldBalance(readDecimal(in))
+            .newBalance(readDecimal(in))
+            .changeAmount(readDecimal(in))
+            .build();
+    }
+
+    /**
+     * Read only the leading accountId, used when rebuilding indexes on startup.
+     */
+    public static String readAccountId(ByteBuffer in) {
+        return readString(in);
+    }
+
+    private static void writeEventId(ByteBuffer out, String eventId) {
+        UUID uuid = parseUuid(eventId);
+        if (uuid != null) {
+            out.put(UUID_ID);
+            out.putLong(uuid.getMostSignificantBits());
+            out.putLong(uuid.getLeastSignificantBits());
+        } else {
+            out.put(STRING_ID);
+            writeString(out, eventId);
+        }
+    }
+
+    private static String readEventId(ByteBuffer in) {
+        if (in.get() == UUID_ID) {
+            return new UUID(in.getLong(), in.getLong()).toString();
+        }
+        return readString(in);
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long to encode: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(ByteBuffer out, BigDecimal value) {
+        if (value == null) {
+            out.put((byte) -1);
+            return;
+        }
+        if (value.scale() < Short.MIN_VALUE || value.scale() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Decimal scale out of range: " + value.scale());
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Decimal too large to encode: " + value);
+        }
+        out.put((byte) unscaled.length);
+        out.put(unscaled);
+        out.putShort((short) value.scale());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        byte length = in.get();
+        if (length < 0) {
+            return null;
+        }
+        if (length <= Long.BYTES) {
+            // Sign-extend the big-endian two's-complement bytes into a long
+            long unscaled = length == 0 ? 0 : in.get();
+            for (int i = 1; i < length; i++) {
+                unscaled = (unscaled << 8) | (in.get() & 0xFF);
+            }
+            return BigDecimal.valueOf(unscaled, in.getShort());
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.getShort());
+    }
+}
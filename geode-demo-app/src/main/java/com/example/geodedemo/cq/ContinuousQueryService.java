@@ -1,5 +1,6 @@
 package com.example.geodedemo.cq;
 
+import com.example.geodedemo.metrics.GeodeMetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.GemFireCache;
@@ -24,6 +25,8 @@ public class ContinuousQueryService {
 
     private final GemFireCache cache;
     private final EventStore eventStore;
+    private final CqEventDispatcher dispatcher;
+    private final GeodeMetricsService metrics;
 
     private final Map<String, CqQuery> activeQueries = new ConcurrentHashMap<>();
 
@@ -66,6 +69,8 @@ public class ContinuousQueryService {
         CqAttributesFactory cqf = new CqAttributesFactory();
         cqf.addCqListener(new AccountBalanceCqListener(
             eventStore,
+            dispatcher,
+            metrics,
             lowBalanceThreshold,
             largeTransactionThreshold
         ));
@@ -91,6 +96,8 @@ public class ContinuousQueryService {
         CqAttributesFactory cqf = new CqAttributesFactory();
         cqf.addCqListener(new AccountBalanceCqListener(
             eventStore,
+            dispatcher,
+            metrics,
             lowBalanceThreshold,
             largeTransactionThreshold
         ));
@@ -148,6 +155,13 @@ public class ContinuousQueryService {
         return eventStore.getRecentEvents(limit);
     }
 
+    /**
+     * Get newest-first event history for one account.
+     */
+    public List<BalanceChangeEvent> getAccountHistory(String accountId, int limit) {
+        return eventStore.getAccountHistory(accountId, limit);
+    }
+
     /**
      * Get alerts (events with alert type set).
      */
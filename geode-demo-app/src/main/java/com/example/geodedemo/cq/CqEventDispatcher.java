@@ -0,0 +1,211 @@
+package com.example.geodedemo.cq;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, batching hand-off between Geode's CQ delivery thread and the
+ * work done per event (alert evaluation, event building, storage, logging).
+ *
+ * Tasks are routed to one of N worker queues by key hash, so events for the
+ * same account are still processed in delivery order. Workers drain their
+ * queue in batches of up to batchSize.
+ *
+ * When a worker queue is full the overflow policy decides what happens:
+ * - BLOCK:       wait up to offer-timeout-ms for space, then drop the new event
+ * - DROP_NEWEST: drop the new event immediately
+ * - DROP_OLDEST: evict the oldest queued event to make room
+ *
+ * Metrics: geode.cq.dispatch.events{outcome=enqueued|processed|dropped|failed}
+ * and geode.cq.dispatch.queue.depth{worker=N}.
+ */
+@Slf4j
+@Component
+public class CqEventDispatcher {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP_NEWEST, DROP_OLDEST
+    }
+
+    private final int workerCount;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutMs;
+    private final List<BlockingQueue<Runnable>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Counter enqueued;
+    private final Counter processed;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running;
+
+    public CqEventDispatcher(MeterRegistry meterRegistry,
+                             @Value("${app.cq.dispatch.workers:2}") int workerCount,
+                             @Value("${app.cq.dispatch.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.cq.dispatch.batch-size:100}") int batchSize,
+                             @Value("${app.cq.dispatch.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                             @Value("${app.cq.dispatch.offer-timeout-ms:100}") long offerTimeoutMs) {
+        if (workerCount <= 0 || queueCapacity < workerCount || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid CQ dispatch configuration");
+        }
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity / workerCount);
+            queues.add(queue);
+            Gauge.builder("geode.cq.dispatch.queue.depth", queue, BlockingQueue::size)
+                .tag("worker", String.valueOf(i))
+                .description("CQ events waiting for a dispatch worker")
+                .register(meterRegistry);
+        }
+
+        enqueued = outcomeCounter(meterRegistry, "enqueued");
+        processed = outcomeCounter(meterRegistry, "processed");
+        dropped = outcomeCounter(meterRegistry, "dropped");
+        failed = outcomeCounter(meterRegistry, "failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Runnable> queue = queues.get(i);
+            Thread worker = new Thread(() -> runWorker(queue), "cq-dispatch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("CQ dispatcher started - {} workers, policy {}, batch size {}",
+            workerCount, overflowPolicy, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        log.info("CQ dispatcher stopped. Processed: {}, Dropped: {}",
+            (long) processed.count(), (long) dropped.count());
+    }
+
+    /**
+     * Hand a task off to the worker owning the key. Never runs the task on the caller's thread.
+     *
+     * @return false if the task was dropped
+     */
+    public boolean dispatch(String key, Runnable task) {
+        BlockingQueue<Runnable> queue = queues.get(Math.floorMod(key != null ? key.hashCode() : 0, workerCount));
+
+        boolean accepted;
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                accepted = queue.offer(task);
+                break;
+
+            case DROP_OLDEST:
+                accepted = queue.offer(task);
+                while (!accepted) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                    accepted = queue.offer(task);
+                }
+                break;
+
+            case BLOCK:
+            default:
+                try {
+                    accepted = queue.offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+        }
+
+        if (accepted) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+            log.debug("CQ dispatch queue full - dropped event for key {}", key);
+        }
+        return accepted;
+    }
+
+    public int getQueueDepth() {
+        return queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    private void runWorker(BlockingQueue<Runnable> queue) {
+        List<Runnable> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Runnable first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (Runnable task : batch) {
+                    try {
+                        task.run();
+                        processed.increment();
+                    } catch (Exception e) {
+                        failed.increment();
+                        log.error("CQ event processing failed: {}", e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // Finish what is already queued before exiting
+                    queue.drainTo(batch);
+                    batch.forEach(this::runQuietly);
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void runQuietly(Runnable task) {
+        try {
+            task.run();
+            processed.increment();
+        } catch (Exception e) {
+            failed.increment();
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("geode.cq.dispatch.events")
+            .tag("outcome", outcome)
+            .description("CQ events handled by the dispatch pipeline")
+            .register(registry);
+    }
+}
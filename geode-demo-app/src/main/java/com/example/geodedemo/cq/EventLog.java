@@ -0,0 +1,325 @@
+package com.example.geodedemo.cq;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Segmented, append-only log of CQ balance-change events on memory-mapped files.
+ *
+ * Event history lives in the OS page cache instead of the Java heap and
+ * survives restarts. Each segment is a fixed-size file named after its base
+ * offset in the log; positions are log-wide byte offsets.
+ *
+ * Record layout:
+ *   int    total length (header + payload + trailer)
+ *   long   timestamp (wall-clock epoch micros)
+ *   long   position of the previous record for the same account (-1 = none)
+ *   bytes  payload (see BalanceChangeEventCodec)
+ *   int    total length again, so the log can be walked backwards
+ *
+ * Recent events are read by walking backwards from the end of the log;
+ * per-account history follows the back-pointer chain. Neither needs an
+ * on-heap index beyond the latest position per account.
+ *
+ * Whole segments older than the retention period are deleted.
+ *
+ * Enable with:
+ *   app.cq.event-log.enabled=true
+ *   app.cq.event-log.directory=./data/cq-events
+ *   app.cq.event-log.segment-size-mb=64
+ *   app.cq.event-log.retention=24h
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cq.event-log.enabled", havingValue = "true")
+public class EventLog {
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int TRAILER_SIZE = Integer.BYTES;
+    private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+    private static final long NO_POSITION = -1L;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration retention;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> lastPositionByAccount = new ConcurrentHashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD_SIZE);
+    private volatile Segment active;
+
+    public EventLog(@Value("${app.cq.event-log.directory:./data/cq-events}") String directory,
+                    @Value("${app.cq.event-log.segment-size-mb:64}") int segmentSizeMb,
+                    @Value("${app.cq.event-log.retention:24h}") Duration retention) {
+        if (segmentSizeMb <= 0 || segmentSizeMb > 1024) {
+            throw new IllegalArgumentException("Segment size must be between 1 and 1024 MB");
+        }
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // Oldest first, so later records win when rebuilding the account index
+        files.sort(Comparator.comparingLong(EventLog::parseBase));
+        for (Path file : files) {
+            Segment segment = Segment.open(file, parseBase(file), (int) Files.size(file));
+            recover(segment);
+            segments.put(segment.base, segment);
+        }
+
+        active = segments.isEmpty() ? createSegment(0) : segments.lastEntry().getValue();
+        log.info("Event log opened at {} - {} segment(s), {} account(s), retention {}",
+            directory, segments.size(), lastPositionByAccount.size(), retention);
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.values().forEach(segment -> segment.buffer.force());
+        log.info("Event log closed");
+    }
+
+    /**
+     * Append an event. Appends are serialized; each one is O(1).
+     */
+    public synchronized void append(BalanceChangeEvent event) {
+        scratch.clear();
+        BalanceChangeEventCodec.encode(event, scratch);
+        int payloadSize = scratch.position();
+        int total = HEADER_SIZE + payloadSize + TRAILER_SIZE;
+
+        Segment segment = active;
+        if (segment.capacity - segment.limit < total) {
+            segment = roll(segment);
+        }
+
+        int offset = segment.limit;
+        long timestamp = toMicros(event.getTimestamp());
+        long previous = event.getAccountId() != null
+            ? lastPositionByAccount.getOrDefault(event.getAccountId(), NO_POSITION)
+            : NO_POSITION;
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset, total);
+        buffer.putLong(offset + Integer.BYTES, timestamp);
+        buffer.putLong(offset + Integer.BYTES + Long.BYTES, previous);
+        buffer.put(offset + HEADER_SIZE, scratch, 0, payloadSize);
+        buffer.putInt(offset + total - TRAILER_SIZE, total);
+
+        segment.lastTimestamp = timestamp;
+        // Publishing the new limit makes the record visible to readers
+        segment.limit = offset + total;
+
+        if (event.getAccountId() != null) {
+            lastPositionByAccount.put(event.getAccountId(), segment.base + offset);
+        }
+    }
+
+    /**
+     * Most recent events across all accounts, newest first.
+     */
+    public List<BalanceChangeEvent> readRecent(int limit) {
+        List<BalanceChangeEvent> result = new ArrayList<>();
+
+        for (Segment segment : segments.descendingMap().values()) {
+            int end = segment.limit;
+            while (end > 0 && result.size() < limit) {
+                int total = segment.buffer.getInt(end - TRAILER_SIZE);
+                int offset = end - total;
+                result.add(decode(segment, offset));
+                end = offset;
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retained history for one account, newest first.
+     */
+    public List<BalanceChangeEvent> readAccountHistory(String accountId, int limit) {
+        List<BalanceChangeEvent> result = new ArrayList<>();
+        long position = lastPositionByAccount.getOrDefault(accountId, NO_POSITION);
+
+        while (position != NO_POSITION && result.size() < limit) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            int offset = (int) (position - segment.base);
+            if (offset >= segment.limit) {
+                break;
+            }
+            result.add(decode(segment, offset));
+            position = segment.buffer.getLong(offset + Integer.BYTES + Long.BYTES);
+        }
+        return result;
+    }
+
+    /**
+     * Balance carried by the newest retained event for an account, or null.
+     */
+    public BigDecimal readLatestBalance(String accountId) {
+        List<BalanceChangeEvent> latest = readAccountHistory(accountId, 1);
+        return latest.isEmpty() ? null : latest.get(0).getNewBalance();
+    }
+
+    /**
+     * Delete whole segments whose newest event is older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${app.cq.event-log.retention-check-ms:60000}")
+    public void purgeExpired() {
+        long cutoff = toMicros(LocalDateTime.now().minus(retention));
+        int purged = 0;
+
+        for (Segment segment : segments.values()) {
+            if (segment == active || segment.lastTimestamp >= cutoff) {
+                break;
+            }
+            segments.remove(segment.base);
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Could not delete expired segment {}: {}", segment.path, e.getMessage());
+            }
+            purged++;
+        }
+
+        if (purged > 0) {
+            long oldest = segments.firstKey();
+            lastPositionByAccount.values().removeIf(position -> position < oldest);
+            log.info("Purged {} expired event log segment(s)", purged);
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private Segment roll(Segment current) {
+        current.buffer.force();
+        Segment next = createSegment(current.base + current.capacity);
+        active = next;
+        return next;
+    }
+
+    private Segment createSegment(long base) {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.open(file, base, segmentSize);
+            segments.put(base, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create event log segment " + file, e);
+        }
+    }
+
+    /**
+     * Scan a segment on startup: find the end of valid data and rebuild the account index.
+     */
+    private void recover(Segment segment) {
+        int offset = 0;
+        while (offset + HEADER_SIZE + TRAILER_SIZE <= segment.capacity) {
+            int total = segment.buffer.getInt(offset);
+            if (total < HEADER_SIZE + TRAILER_SIZE || offset + total > segment.capacity
+                    || segment.buffer.getInt(offset + total - TRAILER_SIZE) != total) {
+                break;
+            }
+            ByteBuffer payload = segment.buffer.duplicate().position(offset + HEADER_SIZE);
+            String accountId = BalanceChangeEventCodec.readAccountId(payload);
+            if (accountId != null) {
+                lastPositionByAccount.put(accountId, segment.base + offset);
+            }
+            segment.lastTimestamp = segment.buffer.getLong(offset + Integer.BYTES);
+            offset += total;
+        }
+        segment.limit = offset;
+    }
+
+    private BalanceChangeEvent decode(Segment segment, int offset) {
+        // A view over the mapping; the record bytes are not copied
+        ByteBuffer payload = segment.buffer.duplicate().position(offset + HEADER_SIZE);
+        BalanceChangeEvent event = BalanceChangeEventCodec.decode(payload);
+        event.setTimestamp(fromMicros(segment.buffer.getLong(offset + Integer.BYTES)));
+        return event;
+    }
+
+    private static long parseBase(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        LocalDateTime value = timestamp != null ? timestamp : LocalDateTime.now();
+        return ChronoUnit.MICROS.between(Instant.EPOCH, value.toInstant(ZoneOffset.UTC));
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static final class Segment {
+        final long base;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        volatile int limit;
+        volatile long lastTimestamp;
+
+        private Segment(long base, Path path, MappedByteBuffer buffer, int capacity) {
+            this.base = base;
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Segment open(Path path, long base, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                return new Segment(base, path, buffer, size);
+            }
+        }
+    }
+}
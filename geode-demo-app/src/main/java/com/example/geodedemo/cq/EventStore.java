@@ -1,75 +1,222 @@
 package com.example.geodedemo.cq;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * In-memory store for CQ events.
  * In production, this would be replaced with Kafka, Redis, or a database.
+ *
+ * Events live in a fixed-capacity ring buffer addressed by a global sequence
+ * number, so an insert is O(1) and the oldest event is overwritten in place.
+ * Secondary indexes (per account, alerts only) hold sequence numbers and are
+ * trimmed as slots are overwritten; lookups validate each sequence against
+ * its slot, so stale index entries are simply skipped. Concurrent writers
+ * index in no particular order, so the indexes are kept sorted by sequence
+ * rather than by arrival, and trimming removes every sequence up to the
+ * evicted one wherever it was inserted.
+ *
+ * When the EventLog is enabled every event is also appended to it, and
+ * history deeper than the ring buffer is served from the log.
  */
 @Slf4j
 @Component
 public class EventStore {
 
-    private final ConcurrentLinkedDeque<BalanceChangeEvent> events = new ConcurrentLinkedDeque<>();
+    private final int capacity;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong nextSequence = new AtomicLong(0);
+
+    private final Map<String, NavigableSet<Long>> sequencesByAccount = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> alertSequences = new ConcurrentSkipListSet<>();
     private final Map<String, BigDecimal> lastKnownBalances = new ConcurrentHashMap<>();
-    private static final int MAX_EVENTS = 1000;
+
+    // Optional durable tier; null when app.cq.event-log.enabled is false
+    private final EventLog eventLog;
+
+    public EventStore(@Value("${app.cq.event-store.capacity:1000}") int capacity,
+                      ObjectProvider<EventLog> eventLog) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Event store capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.eventLog = eventLog.getIfAvailable();
+    }
 
     public void addEvent(BalanceChangeEvent event) {
-        events.addFirst(event);
-        log.info("Event stored: {} - Account {} balance changed to {}",
-            event.getEventType(), event.getAccountId(), event.getNewBalance());
+        // Logged before the ring slot is claimed: an event that loses its slot to a
+        // writer a lap ahead is dropped from the ring only, never from the log
+        if (eventLog != null) {
+            try {
+                eventLog.append(event);
+            } catch (RuntimeException e) {
+                log.warn("Could not append event {} to event log: {}", event.getEventId(), e.getMessage());
+            }
+        }
+
+        long sequence = nextSequence.getAndIncrement();
+        Slot slot = new Slot(sequence, event);
+        int index = (int) (sequence % capacity);
+
+        Slot previous;
+        do {
+            previous = slots.get(index);
+            if (previous != null && previous.sequence > sequence) {
+                // A writer a full lap ahead already claimed this slot; this event is already stale
+                return;
+            }
+        } while (!slots.compareAndSet(index, previous, slot));
 
-        // Keep only the most recent events
-        while (events.size() > MAX_EVENTS) {
-            events.removeLast();
+        if (previous != null) {
+            unindex(previous);
         }
+        index(slot);
+
+        log.debug("Event stored: {} - Account {} balance changed to {}",
+            event.getEventType(), event.getAccountId(), event.getNewBalance());
     }
 
     public List<BalanceChangeEvent> getRecentEvents(int limit) {
-        List<BalanceChangeEvent> result = new ArrayList<>();
-        int count = 0;
-        for (BalanceChangeEvent event : events) {
-            if (count >= limit) break;
-            result.add(event);
-            count++;
+        if (eventLog != null && limit > capacity) {
+            return eventLog.readRecent(limit);
+        }
+
+        List<BalanceChangeEvent> result = new ArrayList<>(Math.min(Math.max(limit, 0), capacity));
+        long newest = nextSequence.get() - 1;
+        long oldest = Math.max(0, newest - capacity + 1);
+
+        for (long sequence = newest; sequence >= oldest && result.size() < limit; sequence--) {
+            BalanceChangeEvent event = lookup(sequence);
+            if (event != null) {
+                result.add(event);
+            }
         }
         return result;
     }
 
     public List<BalanceChangeEvent> getEventsByAccount(String accountId) {
-        return events.stream()
-            .filter(e -> e.getAccountId().equals(accountId))
-            .toList();
+        NavigableSet<Long> sequences = sequencesByAccount.get(accountId);
+        return sequences != null ? resolve(sequences) : List.of();
+    }
+
+    /**
+     * Newest-first history for an account, from the event log when enabled.
+     */
+    public List<BalanceChangeEvent> getAccountHistory(String accountId, int limit) {
+        if (eventLog != null) {
+            return eventLog.readAccountHistory(accountId, limit);
+        }
+        List<BalanceChangeEvent> events = getEventsByAccount(accountId);
+        return events.size() > limit ? events.subList(0, limit) : events;
     }
 
     public List<BalanceChangeEvent> getAlerts() {
-        return events.stream()
-            .filter(e -> e.getAlertType() != null)
-            .toList();
+        return resolve(alertSequences);
     }
 
     public void clear() {
-        events.clear();
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+        sequencesByAccount.clear();
+        alertSequences.clear();
         lastKnownBalances.clear();
     }
 
     public int size() {
-        return events.size();
+        return (int) Math.min(nextSequence.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
     }
 
     public BigDecimal getLastKnownBalance(String accountId) {
-        return lastKnownBalances.get(accountId);
+        BigDecimal balance = lastKnownBalances.get(accountId);
+        if (balance == null && eventLog != null) {
+            // After a restart the log still knows the last balance seen
+            balance = eventLog.readLatestBalance(accountId);
+            if (balance != null) {
+                lastKnownBalances.putIfAbsent(accountId, balance);
+            }
+        }
+        return balance;
     }
 
     public void updateLastKnownBalance(String accountId, BigDecimal balance) {
         lastKnownBalances.put(accountId, balance);
     }
+
+    private void index(Slot slot) {
+        BalanceChangeEvent event = slot.event;
+        if (event.getAccountId() != null) {
+            sequencesByAccount.compute(event.getAccountId(), (key, sequences) -> {
+                NavigableSet<Long> target = sequences != null ? sequences : new ConcurrentSkipListSet<>();
+                target.add(slot.sequence);
+                return target;
+            });
+        }
+        if (event.getAlertType() != null) {
+            alertSequences.add(slot.sequence);
+        }
+    }
+
+    private void unindex(Slot evicted) {
+        BalanceChangeEvent event = evicted.event;
+        if (event.getAccountId() != null) {
+            sequencesByAccount.computeIfPresent(event.getAccountId(), (key, sequences) -> {
+                trimUpTo(sequences, evicted.sequence);
+                return sequences.isEmpty() ? null : sequences;
+            });
+        }
+        if (event.getAlertType() != null) {
+            trimUpTo(alertSequences, evicted.sequence);
+        }
+    }
+
+    private static void trimUpTo(NavigableSet<Long> sequences, long sequence) {
+        sequences.headSet(sequence, true).clear();
+    }
+
+    /**
+     * Newest first.
+     */
+    private List<BalanceChangeEvent> resolve(NavigableSet<Long> sequences) {
+        List<BalanceChangeEvent> result = new ArrayList<>();
+        for (Long sequence : sequences.descendingSet()) {
+            BalanceChangeEvent event = lookup(sequence);
+            if (event != null) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private BalanceChangeEvent lookup(long sequence) {
+        Slot slot = slots.get((int) (sequence % capacity));
+        return slot != null && slot.sequence == sequence ? slot.event : null;
+    }
+
+    private static final class Slot {
+        final long sequence;
+        final BalanceChangeEvent event;
+
+        Slot(long sequence, BalanceChangeEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
 }
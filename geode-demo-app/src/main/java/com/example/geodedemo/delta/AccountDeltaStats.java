@@ -0,0 +1,87 @@
+package com.example.geodedemo.delta;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.DataSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-JVM byte counts for Account balance updates, so full-value and delta
+ * propagation can be compared side by side:
+ * - full:  size of the whole Account for every balance update, i.e. what
+ *          is shipped when deltas are off. Estimated from one serialized
+ *          update in SAMPLE_RATE, to keep serialization off the update path.
+ * - delta: bytes written by Account.toDelta, i.e. what is shipped instead
+ *
+ * Static because toDelta runs inside Geode on the entity itself; exposed as
+ * meters by AccountDeltaConfig.
+ */
+@Slf4j
+public final class AccountDeltaStats {
+
+    private static final int SAMPLE_RATE = 64;
+
+    private static final LongAdder FULL_VALUES = new LongAdder();
+    private static final LongAdder FULL_VALUE_BYTES = new LongAdder();
+    private static final LongAdder DELTAS = new LongAdder();
+    private static final LongAdder DELTA_BYTES = new LongAdder();
+
+    // Size of the last sampled full value; 0 until the first sample
+    private static volatile int fullValueSize;
+
+    private AccountDeltaStats() {
+    }
+
+    /**
+     * Record the full size of an updated value. Only a sample is actually
+     * serialized (PDX-encoded as a put would); the rest count the last sampled size.
+     */
+    public static void recordFullValue(Object value) {
+        int size = fullValueSize;
+        if (size == 0 || ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+            size = serializedSize(value);
+            if (size < 0) {
+                return;
+            }
+            fullValueSize = size;
+        }
+        FULL_VALUES.increment();
+        FULL_VALUE_BYTES.add(size);
+    }
+
+    private static int serializedSize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            DataSerializer.writeObject(value, out);
+        } catch (IOException | RuntimeException e) {
+            log.debug("[Delta] Could not size value: {}", e.getMessage());
+            return -1;
+        }
+        return bytes.size();
+    }
+
+    public static void recordDelta(int bytes) {
+        DELTAS.increment();
+        DELTA_BYTES.add(bytes);
+    }
+
+    public static long getFullValues() {
+        return FULL_VALUES.sum();
+    }
+
+    public static long getFullValueBytes() {
+        return FULL_VALUE_BYTES.sum();
+    }
+
+    public static long getDeltas() {
+        return DELTAS.sum();
+    }
+
+    public static long getDeltaBytes() {
+        return DELTA_BYTES.sum();
+    }
+}
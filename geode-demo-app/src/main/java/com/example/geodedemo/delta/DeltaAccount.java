@@ -105,29 +105,7 @@ public class DeltaAccount implements Delta, Serializable {
     public void toDelta(DataOutput out) throws IOException {
         log.debug("[Delta] toDelta() - Writing delta for account {}", accountId);
 
-        // Write flags indicating which fields changed
-        out.writeBoolean(balanceChanged);
-        out.writeBoolean(statusChanged);
-        out.writeBoolean(creditLimitChanged);
-
-        // Write only changed fields
-        if (balanceChanged) {
-            out.writeUTF(balance != null ? balance.toString() : "0");
-            log.debug("[Delta] Writing balance: {}", balance);
-        }
-
-        if (statusChanged) {
-            out.writeUTF(status != null ? status : "");
-            log.debug("[Delta] Writing status: {}", status);
-        }
-
-        if (creditLimitChanged) {
-            out.writeUTF(creditLimit != null ? creditLimit.toString() : "0");
-            log.debug("[Delta] Writing creditLimit: {}", creditLimit);
-        }
-
-        // Always write updated timestamp
-        out.writeUTF(updatedAt != null ? updatedAt.toString() : LocalDateTime.now().toString());
+        DeltaAccountCodec.write(out, this, getChangedFields());
 
         // Reset flags after sending delta
         resetDeltaFlags();
@@ -137,32 +115,34 @@ public class DeltaAccount implements Delta, Serializable {
     public void fromDelta(DataInput in) throws IOException, InvalidDeltaException {
         log.debug("[Delta] fromDelta() - Reading delta for account {}", accountId);
 
-        // Read flags
-        boolean readBalance = in.readBoolean();
-        boolean readStatus = in.readBoolean();
-        boolean readCreditLimit = in.readBoolean();
+        DeltaAccountCodec.read(in, this);
+    }
 
-        // Apply only changed fields
-        if (readBalance) {
-            String balanceStr = in.readUTF();
-            this.balance = new BigDecimal(balanceStr);
-            log.debug("[Delta] Applied balance: {}", balance);
-        }
+    /**
+     * Changed fields as a DeltaAccountCodec mask.
+     */
+    public int getChangedFields() {
+        return (balanceChanged ? DeltaAccountCodec.BALANCE : 0)
+            | (statusChanged ? DeltaAccountCodec.STATUS : 0)
+            | (creditLimitChanged ? DeltaAccountCodec.CREDIT_LIMIT : 0);
+    }
 
-        if (readStatus) {
-            this.status = in.readUTF();
-            log.debug("[Delta] Applied status: {}", status);
-        }
+    // Applied by the codec on the receiving side; these must not mark fields as changed
 
-        if (readCreditLimit) {
-            String creditLimitStr = in.readUTF();
-            this.creditLimit = new BigDecimal(creditLimitStr);
-            log.debug("[Delta] Applied creditLimit: {}", creditLimit);
-        }
+    void applyBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    void applyStatus(String status) {
+        this.status = status;
+    }
+
+    void applyCreditLimit(BigDecimal creditLimit) {
+        this.creditLimit = creditLimit;
+    }
 
-        // Read updated timestamp
-        String updatedAtStr = in.readUTF();
-        this.updatedAt = LocalDateTime.parse(updatedAtStr);
+    void applyUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
     }
 
     /**
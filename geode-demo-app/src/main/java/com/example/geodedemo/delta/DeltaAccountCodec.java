@@ -0,0 +1,279 @@
+package com.example.geodedemo.delta;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.PdxFields;
+import org.apache.geode.InvalidDeltaException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Binary wire format of DeltaAccount deltas.
+ *
+ * Layout:
+ * - version      : byte, currently VERSION
+ * - changed mask : byte, BALANCE | STATUS | CREDIT_LIMIT | UPDATED_AT
+ * - balance      : decimal, if BALANCE
+ * - status       : byte AccountStatus ordinal, STATUS_NULL, or STATUS_TEXT + UTF, if STATUS
+ * - creditLimit  : decimal, if CREDIT_LIMIT
+ * - updatedAt    : long epoch micros (UTC), if UPDATED_AT
+ *
+ * Decimals are a varint header (zigzag scale << 2 | kind), followed by a
+ * zigzag varint unscaled value (kind 1) or a length-prefixed two's-complement
+ * unscaled value when it does not fit in a long (kind 2); kind 0 is null.
+ * A typical balance such as 1234.56 takes 4 bytes instead of 9 as a string.
+ *
+ * The first byte of the original format was a boolean (0 or 1), so versions
+ * start at 2 and deltas from members still on the old format are decoded too.
+ * An unknown version raises InvalidDeltaException, which makes Geode send the
+ * full value instead.
+ *
+ * The same layout carries Account deltas, which always include every field
+ * that can change after an account is created (ACCOUNT_FIELDS).
+ */
+public final class DeltaAccountCodec {
+
+    public static final byte VERSION = 2;
+
+    public static final int BALANCE = 1;
+    public static final int STATUS = 1 << 1;
+    public static final int CREDIT_LIMIT = 1 << 2;
+    public static final int UPDATED_AT = 1 << 3;
+
+    public static final int ACCOUNT_FIELDS = BALANCE | STATUS | CREDIT_LIMIT;
+
+    private static final int DECIMAL_NULL = 0;
+    private static final int DECIMAL_LONG = 1;
+    private static final int DECIMAL_BIG = 2;
+
+    private static final byte STATUS_NULL = -1;
+    private static final byte STATUS_TEXT = -2;
+
+    private static final Account.AccountStatus[] STATUSES = Account.AccountStatus.values();
+
+    private DeltaAccountCodec() {
+    }
+
+    /**
+     * Write the fields flagged in changed (UPDATED_AT is added when there is a timestamp).
+     */
+    public static void write(DataOutput out, DeltaAccount account, int changed) throws IOException {
+        int mask = changed & (BALANCE | STATUS | CREDIT_LIMIT);
+        if (account.getUpdatedAt() != null) {
+            mask |= UPDATED_AT;
+        }
+
+        out.writeByte(VERSION);
+        out.writeByte(mask);
+        if ((mask & BALANCE) != 0) {
+            writeDecimal(out, account.getBalance());
+        }
+        if ((mask & STATUS) != 0) {
+            writeStatus(out, account.getStatus());
+        }
+        if ((mask & CREDIT_LIMIT) != 0) {
+            writeDecimal(out, account.getCreditLimit());
+        }
+        if ((mask & UPDATED_AT) != 0) {
+            out.writeLong(PdxFields.toMicros(account.getUpdatedAt()));
+        }
+    }
+
+    /**
+     * Apply a delta to the receiver's copy, without raising its own change flags.
+     */
+    public static void read(DataInput in, DeltaAccount account) throws IOException, InvalidDeltaException {
+        byte version = in.readByte();
+        if (version == 0 || version == 1) {
+            readLegacy(in, version == 1, account);
+            return;
+        }
+        if (version != VERSION) {
+            throw new InvalidDeltaException("Unsupported DeltaAccount delta version " + version);
+        }
+
+        int mask = in.readUnsignedByte();
+        if ((mask & BALANCE) != 0) {
+            account.applyBalance(readDecimal(in));
+        }
+        if ((mask & STATUS) != 0) {
+            account.applyStatus(readStatus(in));
+        }
+        if ((mask & CREDIT_LIMIT) != 0) {
+            account.applyCreditLimit(readDecimal(in));
+        }
+        if ((mask & UPDATED_AT) != 0) {
+            account.applyUpdatedAt(PdxFields.fromMicros(in.readLong()));
+        }
+    }
+
+    /**
+     * Encode an Account delta; returned as bytes so the caller can account for its size.
+     */
+    public static byte[] encode(Account account) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        int mask = ACCOUNT_FIELDS | (account.getUpdatedAt() != null ? UPDATED_AT : 0);
+
+        out.writeByte(VERSION);
+        out.writeByte(mask);
+        writeDecimal(out, account.getBalance());
+        writeStatus(out, account.getStatus() != null ? account.getStatus().name() : null);
+        writeDecimal(out, account.getCreditLimit());
+        if ((mask & UPDATED_AT) != 0) {
+            out.writeLong(PdxFields.toMicros(account.getUpdatedAt()));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Apply an Account delta to the receiver's copy.
+     */
+    public static void read(DataInput in, Account account) throws IOException, InvalidDeltaException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new InvalidDeltaException("Unsupported Account delta version " + version);
+        }
+
+        int mask = in.readUnsignedByte();
+        if ((mask & BALANCE) != 0) {
+            account.setBalance(readDecimal(in));
+        }
+        if ((mask & STATUS) != 0) {
+            String status = readStatus(in);
+            account.setStatus(status != null ? toAccountStatus(status) : null);
+        }
+        if ((mask & CREDIT_LIMIT) != 0) {
+            account.setCreditLimit(readDecimal(in));
+        }
+        if ((mask & UPDATED_AT) != 0) {
+            account.setUpdatedAt(PdxFields.fromMicros(in.readLong()));
+        }
+    }
+
+    /**
+     * Original format: three booleans, changed fields as strings, then updatedAt as a string.
+     */
+    private static void readLegacy(DataInput in, boolean balance, DeltaAccount account) throws IOException {
+        boolean status = in.readBoolean();
+        boolean creditLimit = in.readBoolean();
+        if (balance) {
+            account.applyBalance(new BigDecimal(in.readUTF()));
+        }
+        if (status) {
+            account.applyStatus(in.readUTF());
+        }
+        if (creditLimit) {
+            account.applyCreditLimit(new BigDecimal(in.readUTF()));
+        }
+        account.applyUpdatedAt(LocalDateTime.parse(in.readUTF()));
+    }
+
+    static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, DECIMAL_NULL);
+            return;
+        }
+        long scaleBits = zigzag(value.scale()) << 2;
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writeVarLong(out, scaleBits | DECIMAL_LONG);
+            writeVarLong(out, zigzag(unscaled.longValue()));
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writeVarLong(out, scaleBits | DECIMAL_BIG);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static BigDecimal readDecimal(DataInput in) throws IOException {
+        long header = readVarLong(in);
+        int kind = (int) (header & 3);
+        if (kind == DECIMAL_NULL) {
+            return null;
+        }
+        int scale = (int) unzigzag(header >>> 2);
+        if (kind == DECIMAL_LONG) {
+            return BigDecimal.valueOf(unzigzag(readVarLong(in)), scale);
+        }
+        if (kind != DECIMAL_BIG) {
+            throw new InvalidDeltaException("Unknown decimal encoding " + kind);
+        }
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static void writeStatus(DataOutput out, String status) throws IOException {
+        if (status == null) {
+            out.writeByte(STATUS_NULL);
+            return;
+        }
+        for (Account.AccountStatus candidate : STATUSES) {
+            if (candidate.name().equals(status)) {
+                out.writeByte(candidate.ordinal());
+                return;
+            }
+        }
+        out.writeByte(STATUS_TEXT);
+        out.writeUTF(status);
+    }
+
+    private static String readStatus(DataInput in) throws IOException {
+        byte code = in.readByte();
+        if (code == STATUS_NULL) {
+            return null;
+        }
+        if (code == STATUS_TEXT) {
+            return in.readUTF();
+        }
+        if (code < 0 || code >= STATUSES.length) {
+            throw new InvalidDeltaException("Unknown account status ordinal " + code);
+        }
+        return STATUSES[code].name();
+    }
+
+    private static Account.AccountStatus toAccountStatus(String name) {
+        for (Account.AccountStatus candidate : STATUSES) {
+            if (candidate.name().equals(name)) {
+                return candidate;
+            }
+        }
+        throw new InvalidDeltaException("Unknown account status " + name);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidDeltaException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,22 +1,54 @@
 package com.example.geodedemo.entity;
 
-import lombok.AllArgsConstructor;
+import com.example.geodedemo.delta.AccountDeltaStats;
+import com.example.geodedemo.delta.DeltaAccountCodec;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.apache.geode.Delta;
+import org.apache.geode.InvalidDeltaException;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.gemfire.mapping.annotation.Region;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
+/**
+ * Account entity.
+ *
+ * Balance changes made through credit()/debit() are tracked, so putting the
+ * changed account can ship a delta of balance, status, creditLimit and
+ * updatedAt (DeltaAccountCodec) instead of the whole value, when delta
+ * propagation is enabled (app.accounts.delta.enabled on the client). The
+ * remaining fields never change after creation.
+ *
+ * Geode rejects a pending delta put inside a transaction unless the region
+ * clones values, so transactional writes set the balance directly instead.
+ *
+ * Account ids are "<customerId>|<unique part>". The Accounts region uses
+ * Geode's StringPrefixPartitionResolver and is colocated with Customers,
+ * so an account lives in the same bucket as its customer, and all of a
+ * customer's accounts on the same member.
+ */
 @Data
-@Builder
 @NoArgsConstructor
-@AllArgsConstructor
 @Region("Accounts")
-public class Account implements Serializable {
+public class Account implements Serializable, Delta {
+
+    // Delimiter of StringPrefixPartitionResolver: the id is routed by the part before it
+    public static final String ROUTING_DELIMITER = "|";
 
     @Id
     private String accountId;
@@ -29,6 +61,28 @@ public class Account implements Serializable {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Set by credit()/debit() until the delta is sent; never serialized
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient boolean balanceChanged;
+
+    @Builder
+    public Account(String accountId, String customerId, String accountNumber, AccountType accountType,
+                   BigDecimal balance, BigDecimal creditLimit, AccountStatus status,
+                   LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.accountNumber = accountNumber;
+        this.accountType = accountType;
+        this.balance = balance;
+        this.creditLimit = creditLimit;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public enum AccountType {
         CHECKING, SAVINGS, CREDIT
     }
@@ -37,16 +91,67 @@ public class Account implements Serializable {
         ACTIVE, FROZEN, CLOSED
     }
 
+    /**
+     * A new account id routed with the customer's data.
+     */
+    public static String newAccountId(String customerId) {
+        return customerId + ROUTING_DELIMITER + UUID.randomUUID();
+    }
+
+    /**
+     * Whether the id has a routing prefix; the Accounts region rejects keys without one.
+     */
+    public static boolean isRoutable(String accountId) {
+        return accountId != null && accountId.indexOf(ROUTING_DELIMITER) > 0;
+    }
+
+    /**
+     * A key that routes to the bucket of all the customer's accounts, for function filters.
+     */
+    public static String customerRoutingKey(String customerId) {
+        return customerId + ROUTING_DELIMITER;
+    }
+
     public void debit(BigDecimal amount) {
         if (this.balance.compareTo(amount) < 0) {
             throw new IllegalStateException("Insufficient balance");
         }
         this.balance = this.balance.subtract(amount);
         this.updatedAt = LocalDateTime.now();
+        this.balanceChanged = true;
     }
 
     public void credit(BigDecimal amount) {
         this.balance = this.balance.add(amount);
         this.updatedAt = LocalDateTime.now();
+        this.balanceChanged = true;
+    }
+
+    // Delta interface implementation
+
+    @Override
+    public boolean hasDelta() {
+        return balanceChanged;
+    }
+
+    @Override
+    public void toDelta(DataOutput out) throws IOException {
+        byte[] delta = DeltaAccountCodec.encode(this);
+        out.write(delta);
+        AccountDeltaStats.recordDelta(delta.length);
+        balanceChanged = false;
+    }
+
+    @Override
+    public void fromDelta(DataInput in) throws IOException, InvalidDeltaException {
+        DeltaAccountCodec.read(in, this);
+    }
+
+    // Inherited from Delta; keep it out of the PDX mapping and JSON
+    @Override
+    @Transient
+    @JsonIgnore
+    public boolean getForceRecalculateSize() {
+        return false;
     }
 }
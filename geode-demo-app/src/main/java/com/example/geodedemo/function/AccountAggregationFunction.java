@@ -7,10 +7,17 @@ import org.apache.geode.cache.execute.Function;
 import org.apache.geode.cache.execute.FunctionContext;
 import org.apache.geode.cache.execute.RegionFunctionContext;
 import org.apache.geode.cache.execute.ResultSender;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.pdx.PdxInstance;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Server-side function for account aggregation operations.
@@ -20,12 +27,33 @@ import java.util.Map;
  * - TOTAL_BALANCE: Sum of all account balances
  * - COUNT_BY_TYPE: Count accounts by type
  * - AVERAGE_BALANCE: Average balance across all accounts
+ * - MIN_MAX_BALANCE: Smallest and largest balance
+ * - SUMMARY: All of the above plus the account count
+ *
+ * Every operation is answered from a single pass over the buckets this member
+ * owns for the execution. Each member returns its AccountStats partial, and the
+ * caller merges the partials before rendering the requested operation, so the
+ * answer does not depend on how many servers took part. Large members stream
+ * a partial through sendResult as each chunk of their data finishes, then close
+ * with an empty one.
+ *
+ * On servers running with read-serialized=true the values are PdxInstances and
+ * only balance and accountType are decoded per entry (see AccountStats); with
+ * it off each entry is deserialized into an Account first.
  */
 @Slf4j
 public class AccountAggregationFunction implements Function<String> {
 
     public static final String ID = "AccountAggregationFunction";
 
+    // Below this many local entries a plain loop beats fork-join overhead
+    private static final int PARALLEL_THRESHOLD = 50_000;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Chunks submitted but not yet sent; bounds the entries held to a few chunks per worker
+    private static final int MAX_IN_FLIGHT = 2 * PARALLELISM;
+    private static final ForkJoinPool SCAN_POOL = new ForkJoinPool(PARALLELISM);
+
     @Override
     public void execute(FunctionContext<String> context) {
         ResultSender<Object> resultSender = context.getResultSender();
@@ -34,10 +62,9 @@ public class AccountAggregationFunction implements Function<String> {
         try {
             if (context instanceof RegionFunctionContext) {
                 RegionFunctionContext rfc = (RegionFunctionContext) context;
-                Region<String, Account> region = rfc.getDataSet();
+                Region<String, Object> region = localData(rfc);
 
-                Object result = executeOperation(region, operation);
-                resultSender.lastResult(result);
+                executeOperation(region, operation, resultSender);
             } else {
                 resultSender.lastResult("Error: Must be executed on a region");
             }
@@ -47,91 +74,110 @@ public class AccountAggregationFunction implements Function<String> {
         }
     }
 
-    private Object executeOperation(Region<String, Account> region, String operation) {
-        switch (operation != null ? operation.toUpperCase() : "TOTAL_BALANCE") {
-            case "TOTAL_BALANCE":
-                return calculateTotalBalance(region);
-
-            case "COUNT_BY_TYPE":
-                return countByType(region);
-
-            case "AVERAGE_BALANCE":
-                return calculateAverageBalance(region);
-
-            case "MIN_MAX_BALANCE":
-                return findMinMaxBalance(region);
-
-            case "SUMMARY":
-                return generateSummary(region);
-
-            default:
-                return "Unknown operation: " + operation;
+    private void executeOperation(Region<String, Object> region, String operation,
+                                  ResultSender<Object> resultSender) {
+        String op = operation != null ? operation.toUpperCase() : "TOTAL_BALANCE";
+        if (!AccountStats.isSupported(op)) {
+            resultSender.lastResult("Unknown operation: " + operation);
+            return;
         }
+
+        // Every operation ships the same mergeable partials; the caller renders the answer
+        scan(region, op, resultSender);
     }
 
-    private BigDecimal calculateTotalBalance(Region<String, Account> region) {
-        BigDecimal total = BigDecimal.ZERO;
-        for (Account account : region.values()) {
-            if (account != null && account.getBalance() != null) {
-                total = total.add(account.getBalance());
+    /**
+     * Scan only the data this member is responsible for: the buckets assigned to
+     * it for this execution of a partitioned region, the whole region otherwise.
+     *
+     * Small data sets are scanned in one go and sent as a single partial. Large
+     * ones are cut into chunks of CHUNK_SIZE entries while iterating. Each chunk
+     * is scanned on a fork-join worker as soon as it is filled, and its partial
+     * is sent as soon as it completes, so callers see early numbers before this
+     * member has read all of its data. The entries only reference the stored
+     * values, which are deserialized (or, read-serialized, decoded) by the
+     * workers, and at most MAX_IN_FLIGHT chunks are held at a time.
+     */
+    private void scan(Region<String, Object> region, String op, ResultSender<Object> resultSender) {
+        int size = region.size();
+        if (size < PARALLEL_THRESHOLD) {
+            AccountStats stats = new AccountStats();
+            for (Object value : region.values()) {
+                accept(stats, value);
             }
+            resultSender.lastResult(stats);
+            log.info("{} sent 1 partial over {} local accounts", op, size);
+            return;
         }
-        log.info("Total balance calculated: {}", total);
-        return total;
-    }
 
-    private Map<String, Long> countByType(Region<String, Account> region) {
-        Map<String, Long> counts = new HashMap<>();
-        for (Account account : region.values()) {
-            if (account != null && account.getAccountType() != null) {
-                String type = account.getAccountType().name();
-                counts.merge(type, 1L, Long::sum);
+        CompletionService<AccountStats> completed = new ExecutorCompletionService<>(SCAN_POOL);
+        int submitted = 0;
+        int sent = 0;
+        long entries = 0;
+        try {
+            List<Map.Entry<String, Object>> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (Map.Entry<String, Object> entry : region.entrySet()) {
+                chunk.add(entry);
+                entries++;
+                if (chunk.size() < CHUNK_SIZE) {
+                    continue;
+                }
+                if (submitted - sent == MAX_IN_FLIGHT) {
+                    resultSender.sendResult(completed.take().get());
+                    sent++;
+                }
+                List<Map.Entry<String, Object>> filled = chunk;
+                completed.submit(() -> scanChunk(filled));
+                submitted++;
+                chunk = new ArrayList<>(CHUNK_SIZE);
+
+                // Send whatever finished in the meantime
+                for (Future<AccountStats> done; (done = completed.poll()) != null; sent++) {
+                    resultSender.sendResult(done.get());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<Map.Entry<String, Object>> rest = chunk;
+                completed.submit(() -> scanChunk(rest));
+                submitted++;
             }
+            for (; sent < submitted; sent++) {
+                resultSender.sendResult(completed.take().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Aggregation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Aggregation failed: " + e.getCause().getMessage(), e.getCause());
         }
-        log.info("Count by type: {}", counts);
-        return counts;
+
+        // An empty partial merges as a no-op and marks this member as done
+        resultSender.lastResult(new AccountStats());
+        log.info("{} sent {} partial(s) over {} local accounts", op, sent + 1, entries);
     }
 
-    private BigDecimal calculateAverageBalance(Region<String, Account> region) {
-        BigDecimal total = BigDecimal.ZERO;
-        int count = 0;
-        for (Account account : region.values()) {
-            if (account != null && account.getBalance() != null) {
-                total = total.add(account.getBalance());
-                count++;
-            }
+    private static AccountStats scanChunk(List<Map.Entry<String, Object>> chunk) {
+        AccountStats stats = new AccountStats();
+        for (Map.Entry<String, Object> entry : chunk) {
+            // Entries from the local data set read their value on access
+            accept(stats, entry.getValue());
         }
-        if (count == 0) return BigDecimal.ZERO;
-        BigDecimal average = total.divide(BigDecimal.valueOf(count), 2, java.math.RoundingMode.HALF_UP);
-        log.info("Average balance: {}", average);
-        return average;
+        return stats;
     }
 
-    private Map<String, BigDecimal> findMinMaxBalance(Region<String, Account> region) {
-        BigDecimal min = null;
-        BigDecimal max = null;
-        for (Account account : region.values()) {
-            if (account != null && account.getBalance() != null) {
-                BigDecimal balance = account.getBalance();
-                if (min == null || balance.compareTo(min) < 0) min = balance;
-                if (max == null || balance.compareTo(max) > 0) max = balance;
-            }
+    private static void accept(AccountStats stats, Object value) {
+        if (value instanceof PdxInstance) {
+            stats.accept((PdxInstance) value);
+        } else if (value instanceof Account) {
+            stats.accept((Account) value);
         }
-        Map<String, BigDecimal> result = new HashMap<>();
-        result.put("min", min != null ? min : BigDecimal.ZERO);
-        result.put("max", max != null ? max : BigDecimal.ZERO);
-        log.info("Min/Max balance: {}", result);
-        return result;
     }
 
-    private Map<String, Object> generateSummary(Region<String, Account> region) {
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("totalBalance", calculateTotalBalance(region));
-        summary.put("averageBalance", calculateAverageBalance(region));
-        summary.put("countByType", countByType(region));
-        summary.put("minMaxBalance", findMinMaxBalance(region));
-        summary.put("totalAccounts", region.size());
-        return summary;
+    private Region<String, Object> localData(RegionFunctionContext rfc) {
+        Region<String, Object> region = rfc.getDataSet();
+        return PartitionRegionHelper.isPartitionedRegion(region)
+            ? PartitionRegionHelper.getLocalDataForContext(rfc)
+            : region;
     }
 
     @Override
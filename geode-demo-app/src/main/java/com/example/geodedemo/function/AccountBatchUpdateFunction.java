@@ -0,0 +1,300 @@
+package com.example.geodedemo.function;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.CacheTransactionManager;
+import org.apache.geode.cache.CommitConflictException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.TransactionDataNotColocatedException;
+import org.apache.geode.cache.TransactionDataRebalancedException;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionException;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Server-side function that applies balance adjustments to many accounts
+ * where they live.
+ *
+ * Invoked with onRegion(Accounts).withFilter(filter(adjustments)) and
+ * optimizeForWrite. Each filter key is "<account id>|<signed amount>"; the
+ * Accounts region routes on the customer prefix only, so Geode sends every
+ * key, and with it its amount, to the member holding the account's primary
+ * bucket. Each member therefore receives only its own accounts and works on
+ * them locally instead of one get and one put per account from the client.
+ *
+ * Arguments: apply (Boolean)
+ *
+ * - apply = false: validate only, returning an outcome for each account
+ *   that would fail (missing, or balance would go negative)
+ * - apply = true: validate and apply all of this member's accounts in one
+ *   local transaction, retried on commit conflicts. If any account fails,
+ *   none of this member's changes are kept; a bucket moving away or keys
+ *   that are not colocated fail all of this member's accounts. Returns an
+ *   outcome per account.
+ *
+ * Result: ArrayList of BatchUpdateOutcome
+ */
+@Slf4j
+public class AccountBatchUpdateFunction implements Function<Boolean> {
+
+    public static final String ID = "AccountBatchUpdateFunction";
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Filter keys for a batch: one per account, carrying its adjustment.
+     */
+    public static Set<String> filter(Map<String, BigDecimal> adjustments) {
+        Set<String> filter = new LinkedHashSet<>(adjustments.size() * 2);
+        for (Map.Entry<String, BigDecimal> entry : adjustments.entrySet()) {
+            filter.add(entry.getKey() + Account.ROUTING_DELIMITER + entry.getValue());
+        }
+        return filter;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute(FunctionContext<Boolean> context) {
+        if (!(context instanceof RegionFunctionContext)) {
+            throw new FunctionException("Must be executed on a region");
+        }
+        Boolean apply = context.getArguments();
+        if (apply == null) {
+            throw new FunctionException("Expected argument: apply");
+        }
+
+        RegionFunctionContext rfc = (RegionFunctionContext) context;
+        Region<String, Object> region = rfc.getDataSet();
+        Map<String, BigDecimal> adjustments = adjustments((Set<String>) rfc.getFilter());
+        Set<String> accountIds = adjustments.keySet();
+
+        List<BatchUpdateOutcome> outcomes;
+        if (apply) {
+            outcomes = applyInTransaction(context.getCache().getCacheTransactionManager(),
+                region, accountIds, adjustments);
+        } else {
+            outcomes = new ArrayList<>();
+            for (BatchUpdateOutcome outcome : evaluate(region, accountIds, adjustments, null)) {
+                if (outcome.getStatus() != BatchUpdateStatus.APPLIED) {
+                    outcomes.add(outcome);
+                }
+            }
+        }
+        context.getResultSender().lastResult(new ArrayList<>(outcomes));
+    }
+
+    private List<BatchUpdateOutcome> applyInTransaction(CacheTransactionManager txManager,
+                                                        Region<String, Object> region, Set<String> accountIds,
+                                                        Map<String, BigDecimal> adjustments) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                txManager.begin();
+
+                List<BatchUpdateOutcome> outcomes = evaluate(region, accountIds, adjustments, region);
+                if (outcomes.stream().allMatch(o -> o.getStatus() == BatchUpdateStatus.APPLIED)) {
+                    txManager.commit();
+                    return outcomes;
+                }
+
+                // Rolled back in finally; nothing on this member is applied
+                outcomes.replaceAll(o -> o.getStatus() == BatchUpdateStatus.APPLIED
+                    ? BatchUpdateOutcome.rolledBack(o.getAccountId(), o.getAdjustment())
+                    : o);
+                return outcomes;
+
+            } catch (CommitConflictException e) {
+                log.debug("Batch update of {} accounts conflicted (attempt {})", accountIds.size(), attempt);
+            } catch (TransactionDataRebalancedException e) {
+                // The buckets are no longer (all) here, so retrying on this member cannot succeed
+                log.warn("Batch update of {} accounts hit a rebalance: {}", accountIds.size(), e.getMessage());
+                return failAll(accountIds, adjustments, "Data moved to another member - please retry");
+            } catch (TransactionDataNotColocatedException e) {
+                log.warn("Batch update of {} accounts spans non-colocated data: {}", accountIds.size(), e.getMessage());
+                return failAll(accountIds, adjustments, "Accounts are not colocated: " + e.getMessage());
+            } finally {
+                if (txManager.exists()) {
+                    txManager.rollback();
+                }
+            }
+        }
+
+        List<BatchUpdateOutcome> conflicts = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            conflicts.add(BatchUpdateOutcome.conflict(accountId, adjustments.get(accountId)));
+        }
+        return conflicts;
+    }
+
+    private static List<BatchUpdateOutcome> failAll(Set<String> accountIds, Map<String, BigDecimal> adjustments,
+                                                    String message) {
+        List<BatchUpdateOutcome> failures = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            failures.add(BatchUpdateOutcome.failed(accountId, adjustments.get(accountId), message));
+        }
+        return failures;
+    }
+
+    /**
+     * Account ids and adjustments of this member's filter keys (see filter).
+     */
+    private static Map<String, BigDecimal> adjustments(Set<String> filter) {
+        Map<String, BigDecimal> adjustments = new LinkedHashMap<>(filter.size() * 2);
+        for (String key : filter) {
+            int split = key.lastIndexOf(Account.ROUTING_DELIMITER);
+            if (split <= 0) {
+                throw new FunctionException("Malformed batch key: " + key);
+            }
+            adjustments.put(key.substring(0, split), new BigDecimal(key.substring(split + 1)));
+        }
+        return adjustments;
+    }
+
+    /**
+     * Check every account and, when target is not null, put the adjusted copy into it.
+     */
+    private List<BatchUpdateOutcome> evaluate(Region<String, Object> region, Set<String> accountIds,
+                                              Map<String, BigDecimal> adjustments,
+                                              Region<String, Object> target) {
+        List<BatchUpdateOutcome> outcomes = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            BigDecimal adjustment = adjustments.get(accountId);
+            Account account = AccountPdxReader.toAccount(region.get(accountId));
+            if (account == null) {
+                outcomes.add(BatchUpdateOutcome.notFound(accountId, adjustment));
+                continue;
+            }
+
+            BigDecimal newBalance = account.getBalance().add(adjustment);
+            if (newBalance.signum() < 0) {
+                outcomes.add(BatchUpdateOutcome.insufficientBalance(accountId, adjustment, account.getBalance()));
+                continue;
+            }
+
+            if (target != null) {
+                // Never change the cached instance in place. Set the balance rather than
+                // credit()/debit(): a pending delta cannot be put in a transaction on a
+                // region without copy-on-read cloning.
+                Account updated = AccountPdxReader.copyOf(account);
+                updated.setBalance(newBalance);
+                updated.setUpdatedAt(LocalDateTime.now());
+                target.put(accountId, updated);
+            }
+            outcomes.add(BatchUpdateOutcome.applied(accountId, adjustment, newBalance));
+        }
+        return outcomes;
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        return false;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return true;
+    }
+
+    public enum BatchUpdateStatus {
+        APPLIED, ACCOUNT_NOT_FOUND, INSUFFICIENT_BALANCE, ROLLED_BACK, CONFLICT, FAILED
+    }
+
+    /**
+     * Result for one account of a batch update.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchUpdateOutcome implements Serializable {
+        private String accountId;
+        private BatchUpdateStatus status;
+        private String message;
+        private BigDecimal adjustment;
+        // New balance when applied, current balance when it was insufficient
+        private BigDecimal balance;
+
+        static BatchUpdateOutcome applied(String accountId, BigDecimal adjustment, BigDecimal newBalance) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.APPLIED)
+                .adjustment(adjustment)
+                .balance(newBalance)
+                .build();
+        }
+
+        public static BatchUpdateOutcome notFound(String accountId, BigDecimal adjustment) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.ACCOUNT_NOT_FOUND)
+                .message("Account not found")
+                .adjustment(adjustment)
+                .build();
+        }
+
+        static BatchUpdateOutcome insufficientBalance(String accountId, BigDecimal adjustment, BigDecimal balance) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.INSUFFICIENT_BALANCE)
+                .message("Insufficient balance")
+                .adjustment(adjustment)
+                .balance(balance)
+                .build();
+        }
+
+        public static BatchUpdateOutcome conflict(String accountId, BigDecimal adjustment) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.CONFLICT)
+                .message("Transaction conflict - please retry")
+                .adjustment(adjustment)
+                .build();
+        }
+
+        public static BatchUpdateOutcome failed(String accountId, BigDecimal adjustment, String message) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.FAILED)
+                .message(message)
+                .adjustment(adjustment)
+                .build();
+        }
+
+        /**
+         * Not applied because another account in the batch failed.
+         */
+        public static BatchUpdateOutcome rolledBack(String accountId, BigDecimal adjustment) {
+            return BatchUpdateOutcome.builder()
+                .accountId(accountId)
+                .status(BatchUpdateStatus.ROLLED_BACK)
+                .message("Rolled back: another account in the batch failed")
+                .adjustment(adjustment)
+                .build();
+        }
+    }
+}
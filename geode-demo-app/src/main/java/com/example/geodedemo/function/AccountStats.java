@@ -0,0 +1,267 @@
+package com.example.geodedemo.function;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import org.apache.geode.pdx.PdxInstance;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mergeable, single-pass accumulator for account statistics.
+ *
+ * Balances are summed as unscaled longs at a fixed scale of 4 decimal places,
+ * so the common case does no BigDecimal arithmetic per entry.
+ * Values with more decimals, or a sum that would overflow, fall back to
+ * BigDecimal so results are always exact.
+ *
+ * Entries can be accepted as Account objects or, on servers running with
+ * read-serialized, as PdxInstance values; the latter reads only the balance
+ * and accountType fields.
+ *
+ * Partials from different members merge exactly with combine(); the final
+ * answer for an operation is produced once, from the merged state, by render().
+ */
+public class AccountStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int SCALE = 4;
+    // 10^0 .. 10^18, enough to bring any fast-path balance to SCALE
+    private static final long[] POWERS_OF_TEN = new long[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+    private static final Account.AccountType[] TYPES = Account.AccountType.values();
+
+    private long entryCount;
+    private long balanceCount;
+
+    // Fast path: unscaled values at SCALE
+    private long unscaledSum;
+    private long unscaledMin = Long.MAX_VALUE;
+    private long unscaledMax = Long.MIN_VALUE;
+
+    // Slow path: values that do not fit the fast path, and sum overflow
+    private BigDecimal exactSum = BigDecimal.ZERO;
+    private BigDecimal exactMin;
+    private BigDecimal exactMax;
+
+    private final long[] countsByType = new long[TYPES.length];
+
+    public void accept(Account account) {
+        if (account == null) {
+            return;
+        }
+        entryCount++;
+
+        if (account.getAccountType() != null) {
+            countsByType[account.getAccountType().ordinal()]++;
+        }
+
+        BigDecimal balance = account.getBalance();
+        if (balance != null) {
+            acceptBalance(balance);
+        }
+    }
+
+    /**
+     * Accept an Account held as a PdxInstance without deserializing it.
+     */
+    public void accept(PdxInstance account) {
+        if (account == null) {
+            return;
+        }
+        entryCount++;
+
+        Account.AccountType type = AccountPdxReader.accountType(account);
+        if (type != null) {
+            countsByType[type.ordinal()]++;
+        }
+
+        BigDecimal balance = AccountPdxReader.balance(account);
+        if (balance != null) {
+            acceptBalance(balance);
+        }
+    }
+
+    private void acceptBalance(BigDecimal balance) {
+        balanceCount++;
+
+        if (balance.scale() <= SCALE && balance.precision() - balance.scale() <= 14) {
+            // At most 14 integer digits + 4 decimals always fits in a long. Rescaled with
+            // long arithmetic rather than movePointRight, which builds a BigDecimal per entry
+            long unscaled = balance.unscaledValue().longValue() * POWERS_OF_TEN[SCALE - balance.scale()];
+            addUnscaled(unscaled);
+            if (unscaled < unscaledMin) unscaledMin = unscaled;
+            if (unscaled > unscaledMax) unscaledMax = unscaled;
+        } else {
+            exactSum = exactSum.add(balance);
+            if (exactMin == null || balance.compareTo(exactMin) < 0) exactMin = balance;
+            if (exactMax == null || balance.compareTo(exactMax) > 0) exactMax = balance;
+        }
+    }
+
+    private void addUnscaled(long unscaled) {
+        try {
+            unscaledSum = Math.addExact(unscaledSum, unscaled);
+        } catch (ArithmeticException e) {
+            exactSum = exactSum.add(BigDecimal.valueOf(unscaledSum, SCALE)).add(BigDecimal.valueOf(unscaled, SCALE));
+            unscaledSum = 0;
+        }
+    }
+
+    /**
+     * Merge another partial result into this one.
+     */
+    public AccountStats combine(AccountStats other) {
+        entryCount += other.entryCount;
+        balanceCount += other.balanceCount;
+
+        addUnscaled(other.unscaledSum);
+        unscaledMin = Math.min(unscaledMin, other.unscaledMin);
+        unscaledMax = Math.max(unscaledMax, other.unscaledMax);
+
+        exactSum = exactSum.add(other.exactSum);
+        if (other.exactMin != null && (exactMin == null || other.exactMin.compareTo(exactMin) < 0)) {
+            exactMin = other.exactMin;
+        }
+        if (other.exactMax != null && (exactMax == null || other.exactMax.compareTo(exactMax) > 0)) {
+            exactMax = other.exactMax;
+        }
+
+        for (int i = 0; i < countsByType.length; i++) {
+            countsByType[i] += other.countsByType[i];
+        }
+        return this;
+    }
+
+    /**
+     * Whether the operation can be answered from an AccountStats.
+     */
+    public static boolean isSupported(String operation) {
+        switch (operation) {
+            case "TOTAL_BALANCE":
+            case "COUNT_BY_TYPE":
+            case "AVERAGE_BALANCE":
+            case "MIN_MAX_BALANCE":
+            case "SUMMARY":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Render the result of an operation from this (merged) state.
+     */
+    public Object render(String operation) {
+        switch (operation) {
+            case "TOTAL_BALANCE":
+                return getTotalBalance();
+
+            case "COUNT_BY_TYPE":
+                return getCountsByType();
+
+            case "AVERAGE_BALANCE":
+                return getAverageBalance();
+
+            case "MIN_MAX_BALANCE":
+                return getMinMaxBalance();
+
+            case "SUMMARY":
+                Map<String, Object> summary = new HashMap<>();
+                summary.put("totalBalance", getTotalBalance());
+                summary.put("averageBalance", getAverageBalance());
+                summary.put("countByType", getCountsByType());
+                summary.put("minMaxBalance", getMinMaxBalance());
+                summary.put("totalAccounts", entryCount);
+                return summary;
+
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getBalanceCount() {
+        return balanceCount;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return normalize(exactSum.add(BigDecimal.valueOf(unscaledSum, SCALE)));
+    }
+
+    public BigDecimal getAverageBalance() {
+        if (balanceCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        return exactSum.add(BigDecimal.valueOf(unscaledSum, SCALE))
+            .divide(BigDecimal.valueOf(balanceCount), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Smallest balance seen, or null when there were no balances.
+     */
+    public BigDecimal getMinBalance() {
+        BigDecimal fast = unscaledMin == Long.MAX_VALUE ? null : BigDecimal.valueOf(unscaledMin, SCALE);
+        return pick(fast, exactMin, -1);
+    }
+
+    /**
+     * Largest balance seen, or null when there were no balances.
+     */
+    public BigDecimal getMaxBalance() {
+        BigDecimal fast = unscaledMax == Long.MIN_VALUE ? null : BigDecimal.valueOf(unscaledMax, SCALE);
+        return pick(fast, exactMax, 1);
+    }
+
+    public Map<String, BigDecimal> getMinMaxBalance() {
+        BigDecimal min = getMinBalance();
+        BigDecimal max = getMaxBalance();
+        Map<String, BigDecimal> result = new HashMap<>();
+        result.put("min", min != null ? min : BigDecimal.ZERO);
+        result.put("max", max != null ? max : BigDecimal.ZERO);
+        return result;
+    }
+
+    public Map<String, Long> getCountsByType() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < TYPES.length; i++) {
+            if (countsByType[i] > 0) {
+                counts.put(TYPES[i].name(), countsByType[i]);
+            }
+        }
+        return counts;
+    }
+
+    private static BigDecimal pick(BigDecimal fast, BigDecimal exact, int direction) {
+        BigDecimal result;
+        if (fast == null) {
+            result = exact;
+        } else if (exact == null) {
+            result = fast;
+        } else {
+            result = Integer.signum(fast.compareTo(exact)) == direction ? fast : exact;
+        }
+        return result != null ? normalize(result) : null;
+    }
+
+    /**
+     * Drop the padding added by the fixed accumulator scale, keeping at least 2 decimals.
+     */
+    private static BigDecimal normalize(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 2 ? stripped.setScale(2) : stripped;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.geodedemo.function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.geode.cache.execute.FunctionException;
+import org.apache.geode.cache.execute.ResultCollector;
+import org.apache.geode.distributed.DistributedMember;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ResultCollector that merges AccountStats partials as they arrive instead of
+ * buffering every member's result until the slowest one finishes.
+ *
+ * Each update is published, in order, to an optional listener as a Snapshot
+ * holding a copy of the merged state, so progress can be rendered on another
+ * thread. The listener must not block.
+ * Anything that is not an AccountStats (error or unknown-operation messages)
+ * is kept as an error.
+ */
+public class AccountStatsCollector implements ResultCollector<Object, AccountStats> {
+
+    @Data
+    @AllArgsConstructor
+    public static class Snapshot {
+        private AccountStats stats;
+        private int partials;
+        private List<String> errors;
+        private boolean complete;
+    }
+
+    private final Consumer<Snapshot> listener;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private AccountStats merged = new AccountStats();
+    private int partials;
+    private final List<String> errors = new ArrayList<>();
+    private boolean complete;
+
+    public AccountStatsCollector() {
+        this(null);
+    }
+
+    public AccountStatsCollector(Consumer<Snapshot> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void addResult(DistributedMember member, Object result) {
+        if (result instanceof AccountStats) {
+            merged.combine((AccountStats) result);
+            partials++;
+        } else {
+            errors.add(member != null ? member.getName() + ": " + result : String.valueOf(result));
+        }
+        publish();
+    }
+
+    @Override
+    public synchronized void endResults() {
+        if (complete) {
+            return;
+        }
+        complete = true;
+        done.countDown();
+        publish();
+    }
+
+    /**
+     * End collection with an error, e.g. when the execution itself failed.
+     */
+    public synchronized void fail(String message) {
+        errors.add(message);
+        endResults();
+    }
+
+    @Override
+    public AccountStats getResult() throws FunctionException {
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FunctionException("Interrupted waiting for aggregation results", e);
+        }
+        return mergedCopy();
+    }
+
+    @Override
+    public AccountStats getResult(long timeout, TimeUnit unit) throws FunctionException, InterruptedException {
+        if (!done.await(timeout, unit)) {
+            throw new FunctionException("Aggregation did not complete within " + unit.toMillis(timeout) + " ms");
+        }
+        return mergedCopy();
+    }
+
+    @Override
+    public synchronized void clearResults() {
+        // Called before an HA retry; partials from the failed attempt must not be counted twice
+        merged = new AccountStats();
+        partials = 0;
+        errors.clear();
+    }
+
+    public synchronized List<String> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    private synchronized AccountStats mergedCopy() {
+        return new AccountStats().combine(merged);
+    }
+
+    // Called with the lock held, so listeners see updates in order
+    private void publish() {
+        if (listener != null) {
+            listener.accept(new Snapshot(new AccountStats().combine(merged), partials,
+                new ArrayList<>(errors), complete));
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.geodedemo.function;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.CacheTransactionManager;
+import org.apache.geode.cache.CommitConflictException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.execute.ResultSender;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.distributed.DistributedMember;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Server-side function that moves funds between two accounts on the member
+ * that owns the source account.
+ *
+ * Invoked with onRegion(Accounts).withFilter({fromAccountId}) and
+ * optimizeForWrite, so the client pays a single network hop instead of two
+ * gets and two puts.
+ *
+ * Arguments: Object[] { fromAccountId, toAccountId, amount }
+ *
+ * - Both accounts primary on this member: debit and credit in one local transaction
+ * - Target account elsewhere: compare-and-set (Region.replace) on each entry,
+ *   with the debit compensated if the credit cannot be applied
+ *
+ * Either way concurrent transfers can no longer overwrite each other's updates.
+ */
+@Slf4j
+public class AccountTransferFunction implements Function<Object[]> {
+
+    public static final String ID = "AccountTransferFunction";
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Override
+    public void execute(FunctionContext<Object[]> context) {
+        ResultSender<Object> resultSender = context.getResultSender();
+
+        try {
+            if (!(context instanceof RegionFunctionContext)) {
+                resultSender.lastResult(TransferOutcome.failed("Must be executed on a region"));
+                return;
+            }
+
+            Object[] args = context.getArguments();
+            if (args == null || args.length < 3) {
+                resultSender.lastResult(TransferOutcome.failed("Expected arguments: fromAccountId, toAccountId, amount"));
+                return;
+            }
+
+            String fromAccountId = (String) args[0];
+            String toAccountId = (String) args[1];
+            BigDecimal amount = (BigDecimal) args[2];
+
+            RegionFunctionContext rfc = (RegionFunctionContext) context;
+            Region<String, Object> region = rfc.getDataSet();
+
+            resultSender.lastResult(transfer(context, region, fromAccountId, toAccountId, amount));
+        } catch (Exception e) {
+            log.error("Transfer function error: {}", e.getMessage());
+            resultSender.lastResult(TransferOutcome.failed(e.getMessage()));
+        }
+    }
+
+    private TransferOutcome transfer(FunctionContext<?> context, Region<String, Object> region,
+                                     String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            return TransferOutcome.failed("Transfer amount must be positive");
+        }
+        if (fromAccountId.equals(toAccountId)) {
+            return TransferOutcome.failed("Cannot transfer to the same account");
+        }
+
+        if (isLocalPrimary(context, region, toAccountId)) {
+            return transferInTransaction(context.getCache().getCacheTransactionManager(),
+                region, fromAccountId, toAccountId, amount);
+        }
+        return transferWithCompareAndSet(region, fromAccountId, toAccountId, amount);
+    }
+
+    /**
+     * Both entries live on this member, so a local transaction covers them.
+     */
+    private TransferOutcome transferInTransaction(CacheTransactionManager txManager, Region<String, Object> region,
+                                                  String fromAccountId, String toAccountId, BigDecimal amount) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                txManager.begin();
+
+                Account fromAccount = AccountPdxReader.copyOf(region.get(fromAccountId));
+                Account toAccount = AccountPdxReader.copyOf(region.get(toAccountId));
+
+                if (fromAccount == null) {
+                    return TransferOutcome.notFound(fromAccountId);
+                }
+                if (toAccount == null) {
+                    return TransferOutcome.notFound(toAccountId);
+                }
+                if (fromAccount.getBalance().compareTo(amount) < 0) {
+                    return TransferOutcome.insufficientBalance(fromAccount, toAccount);
+                }
+
+                // Balances set directly rather than with debit()/credit(): a pending delta
+                // cannot be put in a transaction on a region without cloning
+                LocalDateTime now = LocalDateTime.now();
+                fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
+                fromAccount.setUpdatedAt(now);
+                toAccount.setBalance(toAccount.getBalance().add(amount));
+                toAccount.setUpdatedAt(now);
+
+                region.put(fromAccountId, fromAccount);
+                region.put(toAccountId, toAccount);
+
+                txManager.commit();
+                return TransferOutcome.completed(fromAccount, toAccount);
+
+            } catch (CommitConflictException e) {
+                log.debug("Transfer {} -> {} conflicted (attempt {})", fromAccountId, toAccountId, attempt);
+            } finally {
+                if (txManager.exists()) {
+                    txManager.rollback();
+                }
+            }
+        }
+        return TransferOutcome.conflict();
+    }
+
+    /**
+     * Target entry is hosted elsewhere; apply debit and credit as two atomic
+     * replace operations and undo the debit if the credit fails.
+     */
+    private TransferOutcome transferWithCompareAndSet(Region<String, Object> region,
+                                                      String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (!region.containsKey(toAccountId)) {
+            return TransferOutcome.notFound(toAccountId);
+        }
+
+        TransferOutcome debit = applyBalanceChange(region, fromAccountId, amount.negate());
+        if (debit.getStatus() != TransferStatus.COMPLETED) {
+            return debit;
+        }
+
+        TransferOutcome credit = applyBalanceChange(region, toAccountId, amount);
+        if (credit.getStatus() != TransferStatus.COMPLETED) {
+            TransferOutcome undo = applyBalanceChange(region, fromAccountId, amount);
+            if (undo.getStatus() != TransferStatus.COMPLETED) {
+                log.error("Failed to compensate debit of {} on account {}: {}",
+                    amount, fromAccountId, undo.getMessage());
+            }
+            return credit;
+        }
+
+        return TransferOutcome.completed(debit.getFromAccount(), credit.getFromAccount());
+    }
+
+    private TransferOutcome applyBalanceChange(Region<String, Object> region, String accountId, BigDecimal delta) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            // The stored value (a PdxInstance under read-serialized) is what replace compares
+            Object current = region.get(accountId);
+            if (current == null) {
+                return TransferOutcome.notFound(accountId);
+            }
+
+            Account updated = AccountPdxReader.copyOf(current);
+            if (delta.signum() < 0) {
+                if (updated.getBalance().compareTo(delta.negate()) < 0) {
+                    return TransferOutcome.insufficientBalance(AccountPdxReader.toAccount(current), null);
+                }
+                updated.debit(delta.negate());
+            } else {
+                updated.credit(delta);
+            }
+
+            if (region.replace(accountId, current, updated)) {
+                return TransferOutcome.completed(updated, null);
+            }
+            log.debug("Concurrent update on account {} (attempt {})", accountId, attempt);
+        }
+        return TransferOutcome.conflict();
+    }
+
+    private boolean isLocalPrimary(FunctionContext<?> context, Region<String, Object> region, String key) {
+        if (!PartitionRegionHelper.isPartitionedRegion(region)) {
+            return true;
+        }
+        DistributedMember self = context.getCache().getDistributedSystem().getDistributedMember();
+        return self.equals(PartitionRegionHelper.getPrimaryMemberForKey(region, key));
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        return false;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return true;
+    }
+
+    public enum TransferStatus {
+        COMPLETED, ACCOUNT_NOT_FOUND, INSUFFICIENT_BALANCE, CONFLICT, FAILED
+    }
+
+    /**
+     * Result returned to the caller for a single transfer.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferOutcome implements Serializable {
+        private TransferStatus status;
+        private String message;
+        private String accountId;
+        private Account fromAccount;
+        private Account toAccount;
+
+        static TransferOutcome completed(Account fromAccount, Account toAccount) {
+            return TransferOutcome.builder()
+                .status(TransferStatus.COMPLETED)
+                .message("Transfer completed successfully")
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .build();
+        }
+
+        static TransferOutcome notFound(String accountId) {
+            return TransferOutcome.builder()
+                .status(TransferStatus.ACCOUNT_NOT_FOUND)
+                .message("Account not found")
+                .accountId(accountId)
+                .build();
+        }
+
+        static TransferOutcome insufficientBalance(Account fromAccount, Account toAccount) {
+            return TransferOutcome.builder()
+                .status(TransferStatus.INSUFFICIENT_BALANCE)
+                .message("Insufficient balance")
+                .accountId(fromAccount.getAccountId())
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .build();
+        }
+
+        static TransferOutcome conflict() {
+            return TransferOutcome.builder()
+                .status(TransferStatus.CONFLICT)
+                .message("Transaction conflict - please retry")
+                .build();
+        }
+
+        static TransferOutcome failed(String message) {
+            return TransferOutcome.builder()
+                .status(TransferStatus.FAILED)
+                .message(message)
+                .build();
+        }
+    }
+}
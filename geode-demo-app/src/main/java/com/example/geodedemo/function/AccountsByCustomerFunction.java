@@ -0,0 +1,82 @@
+package com.example.geodedemo.function;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.serialization.AccountPdxReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.FunctionException;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.SelectResults;
+
+import java.util.ArrayList;
+
+/**
+ * Server-side function returning a customer's accounts.
+ *
+ * Invoked with onRegion(Accounts).withFilter({Account.customerRoutingKey(customerId)}):
+ * accounts are routed by customer id, so the filter names the one bucket
+ * holding all of them, and the query below only runs over that bucket on
+ * the single member chosen for it.
+ *
+ * Arguments: customerId
+ * Result: ArrayList of Account
+ */
+@Slf4j
+public class AccountsByCustomerFunction implements Function<String> {
+
+    public static final String ID = "AccountsByCustomerFunction";
+
+    private static final String QUERY = "SELECT * FROM /Accounts WHERE customerId = $1";
+
+    @Override
+    public void execute(FunctionContext<String> context) {
+        if (!(context instanceof RegionFunctionContext)) {
+            throw new FunctionException("Must be executed on a region");
+        }
+        String customerId = context.getArguments();
+        if (customerId == null) {
+            throw new FunctionException("Expected argument: customerId");
+        }
+
+        try {
+            Query query = context.getCache().getQueryService().newQuery(QUERY);
+            // Executing with the function context limits the query to the filter's buckets
+            SelectResults<?> results = (SelectResults<?>) query.execute(
+                (RegionFunctionContext) context, new Object[] { customerId });
+
+            ArrayList<Account> accounts = new ArrayList<>(results.size());
+            for (Object result : results) {
+                // Results are PdxInstances when the server runs with read-serialized=true
+                accounts.add(AccountPdxReader.toAccount(result));
+            }
+            context.getResultSender().lastResult(accounts);
+        } catch (Exception e) {
+            log.error("Accounts by customer query failed: {}", e.getMessage());
+            throw new FunctionException(e);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        // Read-only, so safe to run again elsewhere
+        return true;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        // Reads can be served by a redundant copy
+        return false;
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.geodedemo.function;
 
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.metrics.GeodeMetricsService;
+import lombok.Builder;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.GemFireCache;
@@ -10,9 +14,22 @@ import org.apache.geode.cache.execute.ResultCollector;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Service for executing Geode functions on the server-side.
@@ -23,13 +40,73 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class FunctionExecutionService {
 
+    private static final long AGGREGATION_TIMEOUT_SECONDS = 30;
+    private static final long BATCH_UPDATE_TIMEOUT_SECONDS = 60;
+    private static final String METRICS_SERVICE = "function";
+
     private final GemFireCache cache;
+    private final GeodeMetricsService metrics;
+
+    private final ExecutorService aggregationExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "aggregation-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * One update of a streamed aggregation: the answer merged so far.
+     */
+    @Data
+    @Builder
+    public static class AggregationProgress {
+        private String operation;
+        private int partials;
+        private long accountsScanned;
+        private boolean complete;
+        private long elapsedMs;
+        private Object result;
+        private String error;
+
+        static AggregationProgress of(String operation, AccountStatsCollector.Snapshot snapshot, long startedNanos) {
+            return AggregationProgress.builder()
+                .operation(operation)
+                .partials(snapshot.getPartials())
+                .accountsScanned(snapshot.getStats().getEntryCount())
+                .complete(snapshot.isComplete())
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos))
+                .result(snapshot.getStats().render(operation))
+                .error(snapshot.getErrors().isEmpty() ? null : String.join("; ", snapshot.getErrors()))
+                .build();
+        }
+
+        static AggregationProgress failed(String operation, String error) {
+            return AggregationProgress.builder()
+                .operation(operation)
+                .complete(true)
+                .error(error)
+                .build();
+        }
+    }
 
     @PostConstruct
     public void init() {
         // Register functions
         FunctionService.registerFunction(new AccountAggregationFunction());
         log.info("Registered AccountAggregationFunction");
+
+        FunctionService.registerFunction(new AccountTransferFunction());
+        log.info("Registered AccountTransferFunction");
+
+        FunctionService.registerFunction(new AccountsByCustomerFunction());
+        log.info("Registered AccountsByCustomerFunction");
+
+        FunctionService.registerFunction(new AccountBatchUpdateFunction());
+        log.info("Registered AccountBatchUpdateFunction");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregationExecutor.shutdownNow();
     }
 
     /**
@@ -38,69 +115,228 @@ public class FunctionExecutionService {
      * @param operation Operation type: TOTAL_BALANCE, COUNT_BY_TYPE, AVERAGE_BALANCE, MIN_MAX_BALANCE, SUMMARY
      * @return Aggregation result
      */
-    @SuppressWarnings("unchecked")
     public Object executeAccountAggregation(String operation) {
+        String op = operation != null ? operation.toUpperCase() : "TOTAL_BALANCE";
+        if (!AccountStats.isSupported(op)) {
+            return Map.of("error", "Unknown operation: " + operation);
+        }
+
         Region<String, ?> region = cache.getRegion("Accounts");
         if (region == null) {
             log.warn("Accounts region not found");
             return Map.of("error", "Accounts region not found");
         }
 
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            Execution execution = FunctionService.onRegion(region)
-                .setArguments(operation);
-
-            ResultCollector<?, ?> rc = execution.execute(AccountAggregationFunction.ID);
-            List<?> results = (List<?>) rc.getResult(30, TimeUnit.SECONDS);
+            AccountStatsCollector collector = new AccountStatsCollector();
+            FunctionService.onRegion(region)
+                .setArguments(op)
+                .withCollector(collector)
+                .execute(AccountAggregationFunction.ID);
 
-            if (results != null && !results.isEmpty()) {
-                // Aggregate results from all servers
-                return aggregateResults(results, operation);
-            }
-            return Map.of("error", "No results returned");
+            AccountStats merged = collector.getResult(AGGREGATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            success = collector.getErrors().isEmpty();
+            return aggregateResults(merged, collector.getErrors(), op);
 
         } catch (Exception e) {
             log.error("Function execution failed: {}", e.getMessage());
             return Map.of("error", e.getMessage());
+        } finally {
+            // Failures come back as an error entry, so the outcome is recorded here
+            metrics.recordOperation(METRICS_SERVICE, op.toLowerCase(), System.nanoTime() - start, success);
         }
     }
 
     /**
-     * Aggregate results from multiple servers.
+     * Execute an aggregation and emit the merged answer every time a partial
+     * result arrives, ending with a complete update. The stream blocks while
+     * waiting for the next partial and gives up after the aggregation timeout.
      */
-    private Object aggregateResults(List<?> results, String operation) {
-        if (results.size() == 1) {
-            return results.get(0);
-        }
-
-        // For multiple results (from multiple servers), aggregate based on operation
-        switch (operation != null ? operation.toUpperCase() : "TOTAL_BALANCE") {
-            case "TOTAL_BALANCE":
-            case "AVERAGE_BALANCE":
-                // Sum numeric results
-                java.math.BigDecimal total = java.math.BigDecimal.ZERO;
-                for (Object result : results) {
-                    if (result instanceof java.math.BigDecimal) {
-                        total = total.add((java.math.BigDecimal) result);
-                    }
+    public Stream<AggregationProgress> streamAccountAggregation(String operation) {
+        String op = operation != null ? operation.toUpperCase() : "TOTAL_BALANCE";
+        if (!AccountStats.isSupported(op)) {
+            return Stream.of(AggregationProgress.failed(op, "Unknown operation: " + operation));
+        }
+
+        Region<String, ?> region = cache.getRegion("Accounts");
+        if (region == null) {
+            return Stream.of(AggregationProgress.failed(op, "Accounts region not found"));
+        }
+
+        long started = System.nanoTime();
+        BlockingQueue<AccountStatsCollector.Snapshot> updates = new LinkedBlockingQueue<>();
+        AccountStatsCollector collector = new AccountStatsCollector(updates::add);
+
+        // Client-side execute delivers results on the calling thread, so run it off the response thread
+        aggregationExecutor.execute(() -> {
+            try {
+                FunctionService.onRegion(region)
+                    .setArguments(op)
+                    .withCollector(collector)
+                    .execute(AccountAggregationFunction.ID);
+            } catch (Exception e) {
+                log.error("Streaming function execution failed: {}", e.getMessage());
+                collector.fail(e.getMessage());
+            }
+        });
+
+        long deadline = started + TimeUnit.SECONDS.toNanos(AGGREGATION_TIMEOUT_SECONDS);
+        Spliterator<AggregationProgress> progress = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super AggregationProgress> action) {
+                if (finished) {
+                    return false;
                 }
-                return total;
-
-            case "COUNT_BY_TYPE":
-                // Merge count maps
-                Map<String, Long> mergedCounts = new java.util.HashMap<>();
-                for (Object result : results) {
-                    if (result instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Long> counts = (Map<String, Long>) result;
-                        counts.forEach((k, v) -> mergedCounts.merge(k, v, Long::sum));
-                    }
+                AccountStatsCollector.Snapshot snapshot;
+                try {
+                    snapshot = updates.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    snapshot = null;
                 }
-                return mergedCounts;
+                finished = snapshot == null || snapshot.isComplete();
+                action.accept(snapshot != null
+                    ? AggregationProgress.of(op, snapshot, started)
+                    : AggregationProgress.failed(op, "Aggregation did not complete within "
+                        + AGGREGATION_TIMEOUT_SECONDS + " seconds"));
+                return true;
+            }
+        };
+        return StreamSupport.stream(progress, false);
+    }
 
-            default:
-                return results;
+    /**
+     * Execute a transfer on the member hosting the source account.
+     * The filter routes the call to a single member in one network hop.
+     */
+    public AccountTransferFunction.TransferOutcome executeTransfer(String fromAccountId, String toAccountId,
+                                                                   BigDecimal amount) {
+        return metrics.time(METRICS_SERVICE, "transfer", () -> transfer(fromAccountId, toAccountId, amount));
+    }
+
+    private AccountTransferFunction.TransferOutcome transfer(String fromAccountId, String toAccountId,
+                                                             BigDecimal amount) {
+        Region<String, ?> region = cache.getRegion("Accounts");
+        if (region == null) {
+            throw new IllegalStateException("Accounts region not found");
+        }
+
+        Execution execution = FunctionService.onRegion(region)
+            .withFilter(Set.of(fromAccountId))
+            .setArguments(new Object[] { fromAccountId, toAccountId, amount });
+
+        List<?> results;
+        try {
+            ResultCollector<?, ?> rc = execution.execute(AccountTransferFunction.ID);
+            results = (List<?>) rc.getResult(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transfer interrupted", e);
+        }
+
+        if (results == null || results.isEmpty()
+                || !(results.get(0) instanceof AccountTransferFunction.TransferOutcome)) {
+            throw new IllegalStateException("Transfer function returned no result");
+        }
+        return (AccountTransferFunction.TransferOutcome) results.get(0);
+    }
+
+    /**
+     * Fetch a customer's accounts from the one member holding them.
+     * Accounts are routed by customer id, so the filter names a single bucket.
+     */
+    public List<Account> executeAccountsByCustomer(String customerId) {
+        return metrics.time(METRICS_SERVICE, "accounts-by-customer", () -> accountsByCustomer(customerId));
+    }
+
+    private List<Account> accountsByCustomer(String customerId) {
+        Region<String, ?> region = cache.getRegion("Accounts");
+        if (region == null) {
+            throw new IllegalStateException("Accounts region not found");
+        }
+
+        Execution execution = FunctionService.onRegion(region)
+            .withFilter(Set.of(Account.customerRoutingKey(customerId)))
+            .setArguments(customerId);
+
+        List<?> results;
+        try {
+            ResultCollector<?, ?> rc = execution.execute(AccountsByCustomerFunction.ID);
+            results = (List<?>) rc.getResult(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Accounts by customer interrupted", e);
+        }
+
+        List<Account> accounts = new ArrayList<>();
+        for (Object result : results) {
+            for (Object account : (List<?>) result) {
+                accounts.add((Account) account);
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Run AccountBatchUpdateFunction over the given accounts. Each member gets the
+     * ids and adjustments whose buckets it holds as primary; outcomes from all
+     * members are returned. Account ids must be routable (Account.isRoutable).
+     *
+     * @param apply false to only validate, returning the accounts that would fail
+     */
+    public List<AccountBatchUpdateFunction.BatchUpdateOutcome> executeBatchUpdate(Map<String, BigDecimal> adjustments,
+                                                                                  boolean apply) {
+        return metrics.time(METRICS_SERVICE, apply ? "batch-apply" : "batch-validate",
+            () -> batchUpdate(adjustments, apply));
+    }
+
+    private List<AccountBatchUpdateFunction.BatchUpdateOutcome> batchUpdate(Map<String, BigDecimal> adjustments,
+                                                                            boolean apply) {
+        Region<String, ?> region = cache.getRegion("Accounts");
+        if (region == null) {
+            throw new IllegalStateException("Accounts region not found");
+        }
+
+        // Amounts travel in the filter keys, so each member only receives its own accounts
+        Execution execution = FunctionService.onRegion(region)
+            .withFilter(AccountBatchUpdateFunction.filter(adjustments))
+            .setArguments(apply);
+
+        List<?> results;
+        try {
+            ResultCollector<?, ?> rc = execution.execute(AccountBatchUpdateFunction.ID);
+            results = (List<?>) rc.getResult(BATCH_UPDATE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch update interrupted", e);
+        }
+
+        List<AccountBatchUpdateFunction.BatchUpdateOutcome> outcomes = new ArrayList<>();
+        for (Object result : results) {
+            for (Object outcome : (List<?>) result) {
+                outcomes.add((AccountBatchUpdateFunction.BatchUpdateOutcome) outcome);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Render the operation once from the partials merged by AccountStatsCollector.
+     * Averages, min/max and summaries are therefore the same whether one server
+     * answered or many.
+     */
+    private Object aggregateResults(AccountStats merged, List<String> errors, String operation) {
+        if (!errors.isEmpty()) {
+            // Error or unknown-operation message from a member
+            log.warn("Aggregation {} returned errors: {}", operation, errors);
+            return Map.of("error", String.join("; ", errors));
         }
+        return merged.render(operation);
     }
 
     /**
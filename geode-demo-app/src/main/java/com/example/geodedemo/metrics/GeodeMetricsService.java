@@ -1,41 +1,87 @@
 package com.example.geodedemo.metrics;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.GemFireCache;
-import org.apache.geode.cache.Region;
-import org.springframework.scheduling.annotation.EnableScheduling;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.ResultCollector;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Custom metrics for Geode operations.
+ *
+ * Service calls are timed as geode.operation.duration{service, operation,
+ * outcome=success|error}; transactions as geode.transaction.duration{type,
+ * outcome}. Timers are created on first use and cached, so recording is a
+ * map lookup plus the timer update. Percentile histograms for both are
+ * enabled in application.yml (management.metrics.distribution).
+ *
+ * Transaction retries: geode.transaction.conflicts{type, resolution=
+ * retried|exhausted} counts commit conflicts, geode.transaction.attempts{type}
+ * the commits needed per transaction and geode.transaction.batch.size{type}
+ * the operations applied per transaction.
+ *
+ * Cluster gauges come from MemberStatsFunction, run on every server each
+ * app.metrics.cluster-stats.interval-ms. Each server answers from its own
+ * statistics, so the poll costs one small message per member instead of
+ * a cluster-wide count per region:
+ * - geode.region.size{region}: partitioned = sum of primary entries, replicated = local copy
+ * - geode.region.buckets{region, member, role=hosted|primary}
+ * - geode.region.bytes{region, member}: partitioned regions only
+ * - geode.region.operations.rate{region, member, operation=get|put}: per second since the previous poll
+ * - geode.member.memory{member, area=heap|offheap, state=used|max|free}
  */
 @Slf4j
 @Service
-@EnableScheduling
 public class GeodeMetricsService {
 
+    private static final long CLUSTER_STATS_TIMEOUT_SECONDS = 10;
+
     private final MeterRegistry meterRegistry;
     private final GemFireCache cache;
 
     // Counters
-    private final AtomicLong customerCount = new AtomicLong(0);
-    private final AtomicLong accountCount = new AtomicLong(0);
     private final AtomicLong cqEventCount = new AtomicLong(0);
     private final AtomicLong transactionCount = new AtomicLong(0);
     private final AtomicLong failedTransactionCount = new AtomicLong(0);
 
-    // Timers
-    private Timer readTimer;
-    private Timer writeTimer;
-    private Timer transactionTimer;
+    // Timers by service, then operation: [success, error]
+    private final Map<String, Map<String, Timer[]>> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer[]> transactionTimers = new ConcurrentHashMap<>();
+
+    // By transaction type: conflicts [retried, exhausted], attempts and batch size
+    private final Map<String, Counter[]> conflictCounters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> attemptSummaries = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> batchSizeSummaries = new ConcurrentHashMap<>();
+
+    // Cluster gauges, replaced as a whole on every poll
+    private MultiGauge regionSize;
+    private MultiGauge regionBuckets;
+    private MultiGauge regionBytes;
+    private MultiGauge regionOperationRate;
+    private MultiGauge memberMemory;
+
+    // Cumulative operation counts from the previous poll, by member|region|operation
+    private Map<String, Long> previousOperations = Map.of();
+    private long previousPollNanos;
 
     public GeodeMetricsService(MeterRegistry meterRegistry, GemFireCache cache) {
         this.meterRegistry = meterRegistry;
@@ -44,15 +90,26 @@ public class GeodeMetricsService {
 
     @PostConstruct
     public void init() {
-        // Register region size gauges
-        Gauge.builder("geode.region.size", customerCount, AtomicLong::get)
-            .tag("region", "Customers")
-            .description("Number of entries in Customers region")
-            .register(meterRegistry);
+        FunctionService.registerFunction(new MemberStatsFunction());
+        log.info("Registered MemberStatsFunction");
 
-        Gauge.builder("geode.region.size", accountCount, AtomicLong::get)
-            .tag("region", "Accounts")
-            .description("Number of entries in Accounts region")
+        // Cluster gauges, filled by updateRegionMetrics
+        regionSize = MultiGauge.builder("geode.region.size")
+            .description("Number of entries in the region")
+            .register(meterRegistry);
+        regionBuckets = MultiGauge.builder("geode.region.buckets")
+            .description("Buckets of a partitioned region held by a member")
+            .register(meterRegistry);
+        regionBytes = MultiGauge.builder("geode.region.bytes")
+            .description("Bytes of region entries held by a member, primaries and redundant copies")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        regionOperationRate = MultiGauge.builder("geode.region.operations.rate")
+            .description("Region gets or puts per second on a member")
+            .register(meterRegistry);
+        memberMemory = MultiGauge.builder("geode.member.memory")
+            .description("Heap and off-heap memory of a member")
+            .baseUnit("bytes")
             .register(meterRegistry);
 
         // CQ event counter
@@ -69,21 +126,6 @@ public class GeodeMetricsService {
             .description("Failed transactions")
             .register(meterRegistry);
 
-        // Timers
-        readTimer = Timer.builder("geode.operation.duration")
-            .tag("operation", "read")
-            .description("Time taken for read operations")
-            .register(meterRegistry);
-
-        writeTimer = Timer.builder("geode.operation.duration")
-            .tag("operation", "write")
-            .description("Time taken for write operations")
-            .register(meterRegistry);
-
-        transactionTimer = Timer.builder("geode.transaction.duration")
-            .description("Time taken for transactions")
-            .register(meterRegistry);
-
         // Cache status gauge
         Gauge.builder("geode.cache.connected", () -> cache.isClosed() ? 0 : 1)
             .description("Whether cache is connected (1) or closed (0)")
@@ -92,42 +134,197 @@ public class GeodeMetricsService {
         log.info("Geode metrics initialized");
     }
 
-    @Scheduled(fixedRate = 30000) // Update every 30 seconds
+    @Scheduled(fixedRateString = "${app.metrics.cluster-stats.interval-ms:30000}")
     public void updateRegionMetrics() {
         try {
-            Region<?, ?> customersRegion = cache.getRegion("Customers");
-            if (customersRegion != null) {
-                customerCount.set(customersRegion.size());
-            }
+            ResultCollector<?, ?> rc = FunctionService.onServers(cache).execute(MemberStatsFunction.ID);
+            List<?> results = (List<?>) rc.getResult(CLUSTER_STATS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 
-            Region<?, ?> accountsRegion = cache.getRegion("Accounts");
-            if (accountsRegion != null) {
-                accountCount.set(accountsRegion.size());
+            List<MemberStats> members = new ArrayList<>();
+            for (Object result : results) {
+                if (result instanceof MemberStats) {
+                    members.add((MemberStats) result);
+                }
             }
+            publishClusterStats(members, System.nanoTime());
         } catch (Exception e) {
             log.debug("Error updating region metrics: {}", e.getMessage());
         }
     }
 
+    private synchronized void publishClusterStats(List<MemberStats> members, long pollNanos) {
+        Map<String, Long> sizes = new TreeMap<>();
+        Map<String, Long> operations = new HashMap<>();
+        double seconds = (pollNanos - previousPollNanos) / 1e9;
+        List<MultiGauge.Row<?>> buckets = new ArrayList<>();
+        List<MultiGauge.Row<?>> bytes = new ArrayList<>();
+        List<MultiGauge.Row<?>> rates = new ArrayList<>();
+        List<MultiGauge.Row<?>> memory = new ArrayList<>();
+
+        for (MemberStats member : members) {
+            String name = member.getMember();
+            memory.add(MultiGauge.Row.of(Tags.of("member", name, "area", "heap", "state", "used"),
+                member.getHeapUsedBytes()));
+            memory.add(MultiGauge.Row.of(Tags.of("member", name, "area", "heap", "state", "max"),
+                member.getHeapMaxBytes()));
+            memory.add(MultiGauge.Row.of(Tags.of("member", name, "area", "offheap", "state", "used"),
+                member.getOffHeapUsedBytes()));
+            memory.add(MultiGauge.Row.of(Tags.of("member", name, "area", "offheap", "state", "free"),
+                member.getOffHeapFreeBytes()));
+
+            for (MemberStats.RegionStats region : member.getRegions()) {
+                String regionName = region.getRegion();
+                if (region.isPartitioned()) {
+                    sizes.merge(regionName, region.getEntries(), Long::sum);
+                    buckets.add(MultiGauge.Row.of(Tags.of("region", regionName, "member", name, "role", "hosted"),
+                        region.getBucketCount()));
+                    buckets.add(MultiGauge.Row.of(Tags.of("region", regionName, "member", name, "role", "primary"),
+                        region.getPrimaryBucketCount()));
+                    bytes.add(MultiGauge.Row.of(Tags.of("region", regionName, "member", name),
+                        region.getBytesInUse()));
+                } else {
+                    sizes.merge(regionName, region.getEntries(), Math::max);
+                }
+
+                addRate(rates, operations, name, regionName, "get", region.getGets(), seconds);
+                addRate(rates, operations, name, regionName, "put", region.getPuts(), seconds);
+            }
+        }
+
+        List<MultiGauge.Row<?>> sizeRows = new ArrayList<>();
+        sizes.forEach((region, size) -> sizeRows.add(MultiGauge.Row.of(Tags.of("region", region), size)));
+
+        // overwrite = true drops rows of members and regions that are gone
+        regionSize.register(sizeRows, true);
+        regionBuckets.register(buckets, true);
+        regionBytes.register(bytes, true);
+        regionOperationRate.register(rates, true);
+        memberMemory.register(memory, true);
+
+        previousOperations = operations;
+        previousPollNanos = pollNanos;
+    }
+
+    private void addRate(List<MultiGauge.Row<?>> rates, Map<String, Long> operations,
+                         String member, String region, String operation, long count, double seconds) {
+        String key = member + '|' + region + '|' + operation;
+        operations.put(key, count);
+        Long previous = previousOperations.get(key);
+        // No rate on the first poll of a member, or after it restarted
+        if (previous != null && count >= previous && seconds > 0) {
+            rates.add(MultiGauge.Row.of(Tags.of("region", region, "member", member, "operation", operation),
+                (count - previous) / seconds));
+        }
+    }
+
     // Methods to record metrics from other services
 
-    public void recordRead(long durationNanos) {
-        readTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    /**
+     * Time a service call; the outcome is error when it throws.
+     */
+    public <T> T time(String service, String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            recordOperation(service, operation, System.nanoTime() - start, success);
+        }
     }
 
-    public void recordWrite(long durationNanos) {
-        writeTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    /**
+     * Time a service call without a result; the outcome is error when it throws.
+     */
+    public void timeRun(String service, String operation, Runnable call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            call.run();
+            success = true;
+        } finally {
+            recordOperation(service, operation, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * For calls that report failure in their result rather than by throwing.
+     */
+    public void recordOperation(String service, String operation, long durationNanos, boolean success) {
+        Timer[] timers = operationTimers.computeIfAbsent(service, s -> new ConcurrentHashMap<>())
+            .computeIfAbsent(operation, o -> new Timer[] {
+                operationTimer(service, o, "success"),
+                operationTimer(service, o, "error")
+            });
+        timers[success ? 0 : 1].record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
-    public void recordTransaction(long durationNanos, boolean success) {
-        transactionTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    public void recordTransaction(String type, long durationNanos, boolean success) {
+        Timer[] timers = transactionTimers.computeIfAbsent(type, t -> new Timer[] {
+            transactionTimer(t, "success"),
+            transactionTimer(t, "error")
+        });
+        timers[success ? 0 : 1].record(durationNanos, TimeUnit.NANOSECONDS);
         transactionCount.incrementAndGet();
         if (!success) {
             failedTransactionCount.incrementAndGet();
         }
     }
 
+    /**
+     * A commit that failed with a conflict; retried is false when the transaction gave up.
+     */
+    public void recordConflict(String type, boolean retried) {
+        Counter[] counters = conflictCounters.computeIfAbsent(type, t -> new Counter[] {
+            conflictCounter(t, "retried"),
+            conflictCounter(t, "exhausted")
+        });
+        counters[retried ? 0 : 1].increment();
+    }
+
+    public void recordAttempts(String type, int attempts) {
+        attemptSummaries.computeIfAbsent(type, t -> DistributionSummary.builder("geode.transaction.attempts")
+            .tag("type", t)
+            .description("Commits tried per transaction, 1 when there was no conflict")
+            .register(meterRegistry))
+            .record(attempts);
+    }
+
+    public void recordBatchSize(String type, int size) {
+        batchSizeSummaries.computeIfAbsent(type, t -> DistributionSummary.builder("geode.transaction.batch.size")
+            .tag("type", t)
+            .description("Operations applied in one transaction")
+            .register(meterRegistry))
+            .record(size);
+    }
+
     public void recordCqEvent() {
         cqEventCount.incrementAndGet();
     }
+
+    private Timer operationTimer(String service, String operation, String outcome) {
+        return Timer.builder("geode.operation.duration")
+            .tag("service", service)
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .description("Time taken by service operations")
+            .register(meterRegistry);
+    }
+
+    private Counter conflictCounter(String type, String resolution) {
+        return Counter.builder("geode.transaction.conflicts")
+            .tag("type", type)
+            .tag("resolution", resolution)
+            .description("Transaction commits that failed with a conflict")
+            .register(meterRegistry);
+    }
+
+    private Timer transactionTimer(String type, String outcome) {
+        return Timer.builder("geode.transaction.duration")
+            .tag("type", type)
+            .tag("outcome", outcome)
+            .description("Time taken for transactions")
+            .register(meterRegistry);
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.geodedemo.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One server's view of itself, as read by MemberStatsFunction from the
+ * member's own statistics. Operation counts are cumulative since the member
+ * started; the caller turns them into rates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String member;
+    private long heapUsedBytes;
+    private long heapMaxBytes;
+    // Zero when the member has no off-heap memory
+    private long offHeapUsedBytes;
+    private long offHeapFreeBytes;
+    private List<RegionStats> regions;
+
+    /**
+     * Local figures for one region on one member.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStats implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String region;
+        private boolean partitioned;
+        // Partitioned: entries in the primary buckets held here, so members add up to the region size.
+        // Replicated: the local copy, the same on every member.
+        private long entries;
+        private int bucketCount;
+        private int primaryBucketCount;
+        // Partitioned only: bytes of the entries in the buckets held here, primaries and copies
+        private long bytesInUse;
+        private long gets;
+        private long puts;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.geodedemo.metrics;
+
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsType;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.distributed.DistributedSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side function returning the member's MemberStats.
+ *
+ * Everything is read from statistics the member already keeps for its own
+ * statistics archive (the same numbers gfsh and the JMX MBeans show), plus
+ * the size of its local primary buckets. Nothing touches another member or
+ * deserializes a value, so polling it does not load the data path.
+ *
+ * Statistics used:
+ * - PartitionedRegionStats (text id = region path): bucketCount,
+ *   primaryBucketCount, dataStoreBytesInUse, getsCompleted, putsCompleted
+ * - CachePerfStats "RegionStats-<name>" for other regions: gets, puts
+ * - VMMemoryUsageStats "vmHeapMemoryStats": usedMemory, maxMemory
+ * - OffHeapMemoryStats, when off-heap memory is configured: usedMemory, freeMemory
+ */
+public class MemberStatsFunction implements Function<Object> {
+
+    public static final String ID = "MemberStatsFunction";
+
+    @Override
+    public void execute(FunctionContext<Object> context) {
+        Cache cache = context.getCache();
+        DistributedSystem system = cache.getDistributedSystem();
+
+        List<MemberStats.RegionStats> regions = new ArrayList<>();
+        for (Region<?, ?> region : cache.rootRegions()) {
+            regions.add(regionStats(system, region));
+        }
+
+        Statistics heap = find(system, "VMMemoryUsageStats", "vmHeapMemoryStats");
+        Statistics offHeap = findFirst(system, "OffHeapMemoryStats");
+
+        context.getResultSender().lastResult(MemberStats.builder()
+            .member(context.getMemberName())
+            .heapUsedBytes(heap != null ? heap.get("usedMemory").longValue() : 0)
+            .heapMaxBytes(heap != null ? heap.get("maxMemory").longValue() : 0)
+            .offHeapUsedBytes(offHeap != null ? offHeap.get("usedMemory").longValue() : 0)
+            .offHeapFreeBytes(offHeap != null ? offHeap.get("freeMemory").longValue() : 0)
+            .regions(regions)
+            .build());
+    }
+
+    private static MemberStats.RegionStats regionStats(DistributedSystem system, Region<?, ?> region) {
+        MemberStats.RegionStats.RegionStatsBuilder builder = MemberStats.RegionStats.builder()
+            .region(region.getName());
+
+        if (PartitionRegionHelper.isPartitionedRegion(region)) {
+            builder.partitioned(true)
+                .entries(PartitionRegionHelper.getLocalPrimaryData(region).size());
+            Statistics stats = find(system, "PartitionedRegionStats", region.getFullPath());
+            if (stats != null) {
+                builder.bucketCount(stats.get("bucketCount").intValue())
+                    .primaryBucketCount(stats.get("primaryBucketCount").intValue())
+                    .bytesInUse(stats.get("dataStoreBytesInUse").longValue())
+                    .gets(stats.get("getsCompleted").longValue())
+                    .puts(stats.get("putsCompleted").longValue());
+            }
+            return builder.build();
+        }
+
+        // Replicated and local regions: the size of the local copy
+        builder.entries(region.size());
+        Statistics stats = find(system, "CachePerfStats", "RegionStats-" + region.getName());
+        if (stats != null) {
+            builder.gets(stats.get("gets").longValue())
+                .puts(stats.get("puts").longValue());
+        }
+        return builder.build();
+    }
+
+    private static Statistics find(DistributedSystem system, String typeName, String textId) {
+        for (Statistics stats : system.findStatisticsByTextId(textId)) {
+            if (stats.getType().getName().equals(typeName)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    private static Statistics findFirst(DistributedSystem system, String typeName) {
+        StatisticsType type = system.findType(typeName);
+        if (type == null) {
+            return null;
+        }
+        Statistics[] stats = system.findStatisticsByType(type);
+        return stats.length > 0 ? stats[0] : null;
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        // A poll that loses a member just reports it on the next one
+        return false;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.geodedemo.paging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a lazily paged Stream to the HTTP response without buffering it,
+ * either as a single JSON array or as newline-delimited JSON (NDJSON).
+ */
+public final class JsonStreams {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = KeysetPager.DEFAULT_PAGE_SIZE;
+
+    private JsonStreams() {
+    }
+
+    public static <T> StreamingResponseBody jsonArray(ObjectMapper mapper, Stream<T> items) {
+        return out -> {
+            try (Stream<T> source = items;
+                 JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                int written = 0;
+                for (Iterator<T> it = source.iterator(); it.hasNext(); ) {
+                    generator.writeObject(it.next());
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    public static <T> StreamingResponseBody ndjson(ObjectMapper mapper, Stream<T> items) {
+        return ndjson(mapper, items, FLUSH_EVERY);
+    }
+
+    /**
+     * NDJSON flushed every flushEvery lines; use 1 for progress updates that must reach the client immediately.
+     */
+    public static <T> StreamingResponseBody ndjson(ObjectMapper mapper, Stream<T> items, int flushEvery) {
+        return out -> {
+            try (Stream<T> source = items) {
+                int written = 0;
+                for (Iterator<T> it = source.iterator(); it.hasNext(); ) {
+                    out.write(mapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                    if (++written % flushEvery == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+    }
+}
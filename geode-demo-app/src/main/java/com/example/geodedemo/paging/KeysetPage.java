@@ -0,0 +1,20 @@
+package com.example.geodedemo.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated region scan.
+ * Pass nextCursor back as "after" to fetch the following page; null means no more data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    private List<T> items;
+    private int size;
+    private String nextCursor;
+}
@@ -0,0 +1,127 @@
+package com.example.geodedemo.paging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.SelectResults;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keyset (seek) pagination over a region using OQL.
+ *
+ * Each page is a single query ordered by the id field and bounded by LIMIT,
+ * starting strictly after the last id of the previous page. Only one page is
+ * ever held in client heap, regardless of region size.
+ *
+ * A range index on the id field keeps each page query cheap, e.g.:
+ * gfsh> create index --name=accountIdIdx --expression=accountId --region=/Accounts
+ */
+@Slf4j
+public class KeysetPager<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final GemFireCache cache;
+    private final String regionName;
+    private final String idField;
+    private final Function<T, String> idExtractor;
+
+    public KeysetPager(GemFireCache cache, String regionName, String idField, Function<T, String> idExtractor) {
+        this.cache = cache;
+        this.regionName = regionName;
+        this.idField = idField;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Fetch a single page.
+     *
+     * @param after     Last id of the previous page, or null for the first page
+     * @param size      Requested page size (clamped to MAX_PAGE_SIZE)
+     * @param condition Optional extra OQL predicate on alias "e", using bind parameters from $2
+     * @param params    Values for the condition's bind parameters
+     */
+    public KeysetPage<T> fetch(String after, int size, String condition, Object... params) {
+        int limit = clamp(size);
+        List<T> items = query(after, limit, condition, params);
+        String nextCursor = items.size() < limit ? null : idExtractor.apply(items.get(items.size() - 1));
+        return new KeysetPage<>(items, items.size(), nextCursor);
+    }
+
+    /**
+     * Lazily stream every matching entry, issuing one page query at a time.
+     */
+    public Stream<T> stream(int pageSize, String condition, Object... params) {
+        int limit = clamp(pageSize);
+
+        Iterator<T> iterator = new Iterator<>() {
+            private Iterator<T> current = List.<T>of().iterator();
+            private String cursor;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && !exhausted) {
+                    List<T> page = query(cursor, limit, condition, params);
+                    exhausted = page.size() < limit;
+                    if (!page.isEmpty()) {
+                        cursor = idExtractor.apply(page.get(page.size() - 1));
+                    }
+                    current = page.iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> query(String after, int limit, String condition, Object... params) {
+        StringBuilder oql = new StringBuilder("SELECT DISTINCT * FROM /")
+            .append(regionName).append(" e WHERE e.").append(idField).append(" > $1");
+        if (condition != null && !condition.isBlank()) {
+            oql.append(" AND (").append(condition).append(')');
+        }
+        oql.append(" ORDER BY e.").append(idField).append(" LIMIT ").append(limit);
+
+        Object[] bindings = new Object[params.length + 1];
+        bindings[0] = after != null ? after : "";
+        System.arraycopy(params, 0, bindings, 1, params.length);
+
+        try {
+            Query query = cache.getQueryService().newQuery(oql.toString());
+            SelectResults<T> results = (SelectResults<T>) query.execute(bindings);
+            return new ArrayList<>(results.asList());
+        } catch (Exception e) {
+            log.error("Keyset query on {} failed: {}", regionName, e.getMessage());
+            throw new IllegalStateException("Failed to page through " + regionName + ": " + e.getMessage(), e);
+        }
+    }
+
+    private int clamp(int size) {
+        if (size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.geodedemo.search;
 
 import com.example.geodedemo.entity.Customer;
+import com.example.geodedemo.metrics.GeodeMetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.GemFireCache;
@@ -34,8 +35,10 @@ public class LuceneSearchService {
 
     private static final String INDEX_NAME = "customerIndex";
     private static final String REGION_NAME = "Customers";
+    private static final String METRICS_SERVICE = "search";
 
     private final GemFireCache cache;
+    private final GeodeMetricsService metrics;
     private LuceneService luceneService;
 
     @PostConstruct
@@ -60,7 +63,7 @@ public class LuceneSearchService {
      * @return List of matching customers
      */
     public List<Customer> searchByName(String queryString) {
-        return executeSearch("name", queryString);
+        return metrics.time(METRICS_SERVICE, "by-name", () -> executeSearch("name", queryString));
     }
 
     /**
@@ -70,7 +73,7 @@ public class LuceneSearchService {
      * @return List of matching customers
      */
     public List<Customer> searchByEmail(String queryString) {
-        return executeSearch("email", queryString);
+        return metrics.time(METRICS_SERVICE, "by-email", () -> executeSearch("email", queryString));
     }
 
     /**
@@ -80,16 +83,18 @@ public class LuceneSearchService {
      * @return List of matching customers
      */
     public List<Customer> searchAll(String queryString) {
-        List<Customer> results = new ArrayList<>();
-        results.addAll(searchByName(queryString));
-        results.addAll(searchByEmail(queryString));
-
-        // Remove duplicates
-        return results.stream()
-            .collect(Collectors.toMap(Customer::getCustomerId, c -> c, (a, b) -> a))
-            .values()
-            .stream()
-            .collect(Collectors.toList());
+        return metrics.time(METRICS_SERVICE, "all", () -> {
+            List<Customer> results = new ArrayList<>();
+            results.addAll(executeSearch("name", queryString));
+            results.addAll(executeSearch("email", queryString));
+
+            // Remove duplicates
+            return results.stream()
+                .collect(Collectors.toMap(Customer::getCustomerId, c -> c, (a, b) -> a))
+                .values()
+                .stream()
+                .collect(Collectors.toList());
+        });
     }
 
     /**
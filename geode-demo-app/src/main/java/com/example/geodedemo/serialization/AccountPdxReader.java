@@ -0,0 +1,92 @@
+package com.example.geodedemo.serialization;
+
+import com.example.geodedemo.entity.Account;
+import org.apache.geode.CopyHelper;
+import org.apache.geode.pdx.PdxInstance;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Field-level reads of Account values held as PdxInstance (servers running
+ * with read-serialized=true), so scans decode only the fields they use instead
+ * of inflating every entry into an Account.
+ *
+ * CompactEntityPdxSerializer and MappingPdxSerializer store balance as a
+ * serialized BigDecimal and accountType as a PDX enum, so both layouts read
+ * the same way; only timestamps differ. Server code that needs the whole
+ * entity (functions, the async event listener) uses toAccount.
+ */
+public final class AccountPdxReader {
+
+    private static final Account.AccountType[] ACCOUNT_TYPES = Account.AccountType.values();
+    private static final Account.AccountStatus[] ACCOUNT_STATUSES = Account.AccountStatus.values();
+
+    private AccountPdxReader() {
+    }
+
+    /**
+     * Balance of an entry, or null when it has none.
+     */
+    public static BigDecimal balance(PdxInstance account) {
+        return PdxFields.toDecimal(account.getField(CompactEntityPdxSerializer.BALANCE));
+    }
+
+    /**
+     * Account type of an entry, or null when it has none.
+     */
+    public static Account.AccountType accountType(PdxInstance account) {
+        return PdxFields.toEnum(account.getField(CompactEntityPdxSerializer.ACCOUNT_TYPE), ACCOUNT_TYPES);
+    }
+
+    /**
+     * Account status of an entry, or null when it has none.
+     */
+    public static Account.AccountStatus status(PdxInstance account) {
+        return PdxFields.toEnum(account.getField(CompactEntityPdxSerializer.STATUS), ACCOUNT_STATUSES);
+    }
+
+    /**
+     * Account for a region value in either form: the value itself when it is
+     * already an Account, a new Account built from the fields of a PdxInstance,
+     * or null. Works without a PdxSerializer registered on the server.
+     */
+    public static Account toAccount(Object value) {
+        if (value instanceof Account) {
+            return (Account) value;
+        }
+        if (!(value instanceof PdxInstance)) {
+            return null;
+        }
+        PdxInstance pdx = (PdxInstance) value;
+        Account account = new Account();
+        account.setAccountId((String) pdx.getField(CompactEntityPdxSerializer.ACCOUNT_ID));
+        account.setCustomerId((String) pdx.getField(CompactEntityPdxSerializer.CUSTOMER_ID));
+        account.setAccountNumber((String) pdx.getField(CompactEntityPdxSerializer.ACCOUNT_NUMBER));
+        account.setAccountType(accountType(pdx));
+        account.setBalance(balance(pdx));
+        account.setCreditLimit(PdxFields.toDecimal(pdx.getField(CompactEntityPdxSerializer.CREDIT_LIMIT)));
+        account.setStatus(PdxFields.toEnum(pdx.getField(CompactEntityPdxSerializer.STATUS), ACCOUNT_STATUSES));
+        account.setCreatedAt(timestamp(pdx.getField(CompactEntityPdxSerializer.CREATED_AT)));
+        account.setUpdatedAt(timestamp(pdx.getField(CompactEntityPdxSerializer.UPDATED_AT)));
+        return account;
+    }
+
+    /**
+     * Private Account copy of a region value that can be changed without
+     * touching the cached instance. Under read-serialized CopyHelper hands
+     * back a PdxInstance even for an Account, so the copy goes through
+     * toAccount as well.
+     */
+    public static Account copyOf(Object value) {
+        return toAccount(value instanceof Account ? CopyHelper.copy(value) : value);
+    }
+
+    private static LocalDateTime timestamp(Object value) {
+        // Epoch micros when compact, a serialized LocalDateTime when reflective
+        if (value instanceof Long) {
+            return PdxFields.fromMicros((Long) value);
+        }
+        return value instanceof LocalDateTime ? (LocalDateTime) value : null;
+    }
+}
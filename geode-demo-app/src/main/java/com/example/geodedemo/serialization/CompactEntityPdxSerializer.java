@@ -0,0 +1,126 @@
+package com.example.geodedemo.serialization;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.entity.Customer;
+import org.apache.geode.pdx.PdxReader;
+import org.apache.geode.pdx.PdxSerializer;
+import org.apache.geode.pdx.PdxWriter;
+
+/**
+ * Hand-written PDX serializer for Account and Customer.
+ *
+ * Replaces reflection-based mapping on the hot entities with fixed field
+ * lists (see PdxFields): timestamps as epoch micros, while money stays a
+ * BigDecimal and enums stay PDX enums so OQL predicates on them (repository
+ * finders, balance comparisons) still work on servers without the entity
+ * classes. Any other type is handed to the fallback serializer.
+ *
+ * Field names are part of the wire format; server-side code reading
+ * PdxInstance fields uses the constants below.
+ */
+public class CompactEntityPdxSerializer implements PdxSerializer {
+
+    // Account fields
+    public static final String ACCOUNT_ID = "accountId";
+    public static final String CUSTOMER_ID = "customerId";
+    public static final String ACCOUNT_NUMBER = "accountNumber";
+    public static final String ACCOUNT_TYPE = "accountType";
+    public static final String BALANCE = "balance";
+    public static final String CREDIT_LIMIT = "creditLimit";
+    public static final String STATUS = "status";
+    public static final String CREATED_AT = "createdAt";
+    public static final String UPDATED_AT = "updatedAt";
+
+    // Customer fields not shared with Account
+    public static final String NAME = "name";
+    public static final String EMAIL = "email";
+    public static final String PHONE = "phone";
+    public static final String ADDRESS = "address";
+
+    private static final Account.AccountType[] ACCOUNT_TYPES = Account.AccountType.values();
+    private static final Account.AccountStatus[] ACCOUNT_STATUSES = Account.AccountStatus.values();
+    private static final Customer.CustomerStatus[] CUSTOMER_STATUSES = Customer.CustomerStatus.values();
+
+    private final PdxSerializer fallback;
+
+    public CompactEntityPdxSerializer(PdxSerializer fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public boolean toData(Object value, PdxWriter out) {
+        if (value instanceof Account) {
+            writeAccount((Account) value, out);
+            return true;
+        }
+        if (value instanceof Customer) {
+            writeCustomer((Customer) value, out);
+            return true;
+        }
+        return fallback != null && fallback.toData(value, out);
+    }
+
+    @Override
+    public Object fromData(Class<?> type, PdxReader in) {
+        if (type == Account.class) {
+            return readAccount(in);
+        }
+        if (type == Customer.class) {
+            return readCustomer(in);
+        }
+        return fallback != null ? fallback.fromData(type, in) : null;
+    }
+
+    private static void writeAccount(Account account, PdxWriter out) {
+        // No identity field: servers compare PDX values on every field, which
+        // conditional writes such as replace(key, old, new) rely on
+        out.writeString(ACCOUNT_ID, account.getAccountId());
+        out.writeString(CUSTOMER_ID, account.getCustomerId());
+        out.writeString(ACCOUNT_NUMBER, account.getAccountNumber());
+        PdxFields.writeEnum(out, ACCOUNT_TYPE, account.getAccountType());
+        PdxFields.writeDecimal(out, BALANCE, account.getBalance());
+        PdxFields.writeDecimal(out, CREDIT_LIMIT, account.getCreditLimit());
+        PdxFields.writeEnum(out, STATUS, account.getStatus());
+        PdxFields.writeTimestamp(out, CREATED_AT, account.getCreatedAt());
+        PdxFields.writeTimestamp(out, UPDATED_AT, account.getUpdatedAt());
+    }
+
+    private static Account readAccount(PdxReader in) {
+        Account account = new Account();
+        account.setAccountId(in.readString(ACCOUNT_ID));
+        account.setCustomerId(in.readString(CUSTOMER_ID));
+        account.setAccountNumber(in.readString(ACCOUNT_NUMBER));
+        account.setAccountType(PdxFields.readEnum(in, ACCOUNT_TYPE, ACCOUNT_TYPES));
+        account.setBalance(PdxFields.readDecimal(in, BALANCE));
+        account.setCreditLimit(PdxFields.readDecimal(in, CREDIT_LIMIT));
+        account.setStatus(PdxFields.readEnum(in, STATUS, ACCOUNT_STATUSES));
+        account.setCreatedAt(PdxFields.readTimestamp(in, CREATED_AT));
+        account.setUpdatedAt(PdxFields.readTimestamp(in, UPDATED_AT));
+        return account;
+    }
+
+    private static void writeCustomer(Customer customer, PdxWriter out) {
+        out.writeString(CUSTOMER_ID, customer.getCustomerId());
+        out.markIdentityField(CUSTOMER_ID);
+        out.writeString(NAME, customer.getName());
+        out.writeString(EMAIL, customer.getEmail());
+        out.writeString(PHONE, customer.getPhone());
+        out.writeString(ADDRESS, customer.getAddress());
+        PdxFields.writeEnum(out, STATUS, customer.getStatus());
+        PdxFields.writeTimestamp(out, CREATED_AT, customer.getCreatedAt());
+        PdxFields.writeTimestamp(out, UPDATED_AT, customer.getUpdatedAt());
+    }
+
+    private static Customer readCustomer(PdxReader in) {
+        Customer customer = new Customer();
+        customer.setCustomerId(in.readString(CUSTOMER_ID));
+        customer.setName(in.readString(NAME));
+        customer.setEmail(in.readString(EMAIL));
+        customer.setPhone(in.readString(PHONE));
+        customer.setAddress(in.readString(ADDRESS));
+        customer.setStatus(PdxFields.readEnum(in, STATUS, CUSTOMER_STATUSES));
+        customer.setCreatedAt(PdxFields.readTimestamp(in, CREATED_AT));
+        customer.setUpdatedAt(PdxFields.readTimestamp(in, UPDATED_AT));
+        return customer;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.geodedemo.serialization;
+
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.PdxReader;
+import org.apache.geode.pdx.PdxWriter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * PDX encodings for the value types used by the entities.
+ *
+ * - BigDecimal:    serialized BigDecimal, a JDK type servers can compare in OQL
+ * - LocalDateTime: long epoch micros, taken as UTC (NULL_TIMESTAMP = null)
+ * - Enum:          PDX enum, which servers without the enum class match
+ *                  against query parameters by class and name
+ *
+ * Every field is written for every instance, so each class has a single PDX type.
+ */
+public final class PdxFields {
+
+    public static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+
+    private PdxFields() {
+    }
+
+    public static void writeDecimal(PdxWriter out, String field, BigDecimal value) {
+        out.writeObject(field, value);
+    }
+
+    public static BigDecimal readDecimal(PdxReader in, String field) {
+        return toDecimal(in.readObject(field));
+    }
+
+    /**
+     * BigDecimal of a decimal field value, or null; shared with PdxInstance readers.
+     */
+    public static BigDecimal toDecimal(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : null;
+    }
+
+    public static void writeTimestamp(PdxWriter out, String field, LocalDateTime value) {
+        out.writeLong(field, toMicros(value));
+    }
+
+    public static LocalDateTime readTimestamp(PdxReader in, String field) {
+        return fromMicros(in.readLong(field));
+    }
+
+    public static long toMicros(LocalDateTime value) {
+        return value != null
+            ? ChronoUnit.MICROS.between(Instant.EPOCH, value.toInstant(ZoneOffset.UTC))
+            : NULL_TIMESTAMP;
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    public static void writeEnum(PdxWriter out, String field, Enum<?> value) {
+        out.writeObject(field, value);
+    }
+
+    public static <E extends Enum<E>> E readEnum(PdxReader in, String field, E[] values) {
+        return toEnum(in.readObject(field), values);
+    }
+
+    /**
+     * Enum constant of an enum field value, or null; shared with PdxInstance readers.
+     * Under read-serialized a PDX enum stays a PdxInstance, matched by name
+     * rather than ordinal.
+     */
+    public static <E extends Enum<E>> E toEnum(Object value, E[] values) {
+        if (value == null) {
+            return null;
+        }
+        for (E candidate : values) {
+            if (candidate == value) {
+                return candidate;
+            }
+        }
+        if (value instanceof PdxInstance) {
+            Object name = ((PdxInstance) value).getField("name");
+            for (E candidate : values) {
+                if (candidate.name().equals(name)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.geodedemo.serialization;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.pdx.PdxSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.gemfire.mapping.MappingPdxSerializer;
+
+/**
+ * PDX serializer used by the client cache (see @EnablePdx on the application).
+ *
+ * Everything uses the reflection-based MappingPdxSerializer unless
+ *   app.pdx.compact-entities.enabled=true
+ * switches Account and Customer to the compact hand-written encoding. That is
+ * a migration, not a toggle: timestamps become an epoch-micros long instead of
+ * a LocalDateTime, so the same PDX type name gets different field types.
+ * Export the data, destroy and recreate the Accounts and Customers regions,
+ * then reload them with every client switched over.
+ */
+@Slf4j
+@Configuration
+public class PdxSerializerConfig {
+
+    public static final String SERIALIZER_BEAN_NAME = "entityPdxSerializer";
+
+    @Bean(SERIALIZER_BEAN_NAME)
+    public PdxSerializer entityPdxSerializer(@Value("${app.pdx.compact-entities.enabled:false}") boolean compact) {
+        MappingPdxSerializer mapping = MappingPdxSerializer.newMappingPdxSerializer();
+        if (!compact) {
+            return mapping;
+        }
+        log.info("Using compact PDX serialization for Account and Customer");
+        return new CompactEntityPdxSerializer(mapping);
+    }
+}
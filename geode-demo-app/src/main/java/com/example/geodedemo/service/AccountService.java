@@ -1,101 +1,362 @@
 package com.example.geodedemo.service;
 
+import com.example.geodedemo.delta.AccountDeltaStats;
 import com.example.geodedemo.entity.Account;
 import com.example.geodedemo.exception.ResourceNotFoundException;
+import com.example.geodedemo.function.AccountTransferFunction.TransferOutcome;
+import com.example.geodedemo.function.FunctionExecutionService;
+import com.example.geodedemo.metrics.GeodeMetricsService;
+import com.example.geodedemo.paging.KeysetPage;
+import com.example.geodedemo.paging.KeysetPager;
 import com.example.geodedemo.repository.AccountRepository;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.CopyHelper;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.FunctionException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AccountService {
 
+    // Maximum number of distinct accounts per getAll round-trip
+    private static final int BATCH_CHUNK_SIZE = 500;
+    // Conditional writes per account before its adjustments fail as conflicted
+    private static final int MAX_REPLACE_ATTEMPTS = 5;
+    private static final String METRICS_SERVICE = "account";
+
     private final AccountRepository accountRepository;
+    private final FunctionExecutionService functionExecutionService;
+    private final GemFireCache cache;
+    private final GeodeMetricsService metrics;
+
+    @SuppressWarnings("unchecked")
+    private Region<String, Account> getAccountRegion() {
+        return cache.getRegion("Accounts");
+    }
 
     public Account createAccount(Account account) {
-        account.setAccountId(UUID.randomUUID().toString());
-        account.setAccountNumber(generateAccountNumber());
-        account.setStatus(Account.AccountStatus.ACTIVE);
-        account.setCreatedAt(LocalDateTime.now());
-        account.setUpdatedAt(LocalDateTime.now());
-
-        if (account.getBalance() == null) {
-            account.setBalance(BigDecimal.ZERO);
-        }
-        if (account.getCreditLimit() == null) {
-            account.setCreditLimit(BigDecimal.ZERO);
-        }
+        return metrics.time(METRICS_SERVICE, "create", () -> {
+            if (account.getCustomerId() == null || account.getCustomerId().isEmpty()) {
+                throw new IllegalStateException("Customer id is required");
+            }
+            // Routed by customer id, so the account is stored with its customer
+            account.setAccountId(Account.newAccountId(account.getCustomerId()));
+            account.setAccountNumber(generateAccountNumber());
+            account.setStatus(Account.AccountStatus.ACTIVE);
+            account.setCreatedAt(LocalDateTime.now());
+            account.setUpdatedAt(LocalDateTime.now());
+
+            if (account.getBalance() == null) {
+                account.setBalance(BigDecimal.ZERO);
+            }
+            if (account.getCreditLimit() == null) {
+                account.setCreditLimit(BigDecimal.ZERO);
+            }
 
-        Account saved = accountRepository.save(account);
-        log.info("Created account: {} for customer: {}", saved.getAccountId(), saved.getCustomerId());
-        return saved;
+            Account saved = accountRepository.save(account);
+            log.info("Created account: {} for customer: {}", saved.getAccountId(), saved.getCustomerId());
+            return saved;
+        });
     }
 
     public Account getAccount(String accountId) {
-        return accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account", accountId));
+        return metrics.time(METRICS_SERVICE, "get", () -> findAccount(accountId));
     }
 
     public List<Account> getAccountsByCustomer(String customerId) {
-        return accountRepository.findByCustomerId(customerId);
+        return metrics.time(METRICS_SERVICE, "by-customer", () -> {
+            try {
+                return functionExecutionService.executeAccountsByCustomer(customerId);
+            } catch (FunctionException e) {
+                // Servers without the application functions: query every member instead
+                log.debug("Accounts by customer function unavailable, querying all members: {}", e.getMessage());
+                return accountRepository.findByCustomerId(customerId);
+            }
+        });
     }
 
     public Account deposit(String accountId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalStateException("Deposit amount must be positive");
-        }
+        return metrics.time(METRICS_SERVICE, "deposit", () -> {
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalStateException("Deposit amount must be positive");
+            }
 
-        Account account = getAccount(accountId);
-        account.credit(amount);
+            Account account = findAccount(accountId);
+            account.credit(amount);
 
-        Account saved = accountRepository.save(account);
-        log.info("Deposited {} to account: {}. New balance: {}", amount, accountId, saved.getBalance());
-        return saved;
+            Account saved = accountRepository.save(account);
+            AccountDeltaStats.recordFullValue(saved);
+            log.info("Deposited {} to account: {}. New balance: {}", amount, accountId, saved.getBalance());
+            return saved;
+        });
     }
 
     public Account withdraw(String accountId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalStateException("Withdrawal amount must be positive");
-        }
+        return metrics.time(METRICS_SERVICE, "withdraw", () -> {
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalStateException("Withdrawal amount must be positive");
+            }
 
-        Account account = getAccount(accountId);
-        account.debit(amount);
+            Account account = findAccount(accountId);
+            account.debit(amount);
 
-        Account saved = accountRepository.save(account);
-        log.info("Withdrew {} from account: {}. New balance: {}", amount, accountId, saved.getBalance());
-        return saved;
+            Account saved = accountRepository.save(account);
+            AccountDeltaStats.recordFullValue(saved);
+            log.info("Withdrew {} from account: {}. New balance: {}", amount, accountId, saved.getBalance());
+            return saved;
+        });
     }
 
     public Account transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalStateException("Transfer amount must be positive");
+        return metrics.time(METRICS_SERVICE, "transfer", () -> {
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalStateException("Transfer amount must be positive");
+            }
+
+            if (!Account.isRoutable(fromAccountId)) {
+                throw new ResourceNotFoundException("Account", fromAccountId);
+            }
+
+            // Debit and credit run server-side on the member owning the source account
+            TransferOutcome outcome = functionExecutionService.executeTransfer(fromAccountId, toAccountId, amount);
+
+            switch (outcome.getStatus()) {
+                case COMPLETED:
+                    log.info("Transferred {} from {} to {}", amount, fromAccountId, toAccountId);
+                    return outcome.getFromAccount();
+
+                case ACCOUNT_NOT_FOUND:
+                    throw new ResourceNotFoundException("Account", outcome.getAccountId());
+
+                default:
+                    throw new IllegalStateException(outcome.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Apply a list of deposits and withdrawals in bulk.
+     * Adjustments are grouped by account and applied in submission order,
+     * reading each chunk of accounts with one getAll.
+     * Each account is written with replace(id, read value, new value), so a
+     * concurrent deposit or transfer is never overwritten: the write fails, and
+     * the account's adjustments are applied again to its current value.
+     * Each adjustment succeeds or fails on its own; failures leave the balance unchanged.
+     */
+    public List<AdjustmentResult> applyAdjustments(List<Adjustment> adjustments) {
+        return metrics.time(METRICS_SERVICE, "adjust", () -> {
+            AdjustmentResult[] results = new AdjustmentResult[adjustments.size()];
+            Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+
+            for (int i = 0; i < adjustments.size(); i++) {
+                Adjustment adjustment = adjustments.get(i);
+                String rejection = validate(adjustment);
+                if (rejection != null) {
+                    results[i] = AdjustmentResult.failed(i, adjustment, rejection);
+                } else {
+                    indexesByAccount.computeIfAbsent(adjustment.getAccountId(), k -> new ArrayList<>()).add(i);
+                }
+            }
+
+            List<String> accountIds = new ArrayList<>(indexesByAccount.keySet());
+            for (int from = 0; from < accountIds.size(); from += BATCH_CHUNK_SIZE) {
+                List<String> chunk = accountIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, accountIds.size()));
+                applyChunk(chunk, indexesByAccount, adjustments, results);
+            }
+
+            long failed = Arrays.stream(results).filter(r -> !r.isSuccess()).count();
+            log.info("Applied {} adjustments across {} accounts ({} failed)",
+                adjustments.size(), accountIds.size(), failed);
+            return Arrays.asList(results);
+        });
+    }
+
+    private void applyChunk(List<String> accountIds, Map<String, List<Integer>> indexesByAccount,
+                            List<Adjustment> adjustments, AdjustmentResult[] results) {
+        Region<String, Account> region = getAccountRegion();
+        Map<String, Account> current = region.getAll(accountIds);
+
+        for (String accountId : accountIds) {
+            applyToAccount(region, accountId, current.get(accountId),
+                indexesByAccount.get(accountId), adjustments, results);
         }
+    }
 
-        Account fromAccount = getAccount(fromAccountId);
-        Account toAccount = getAccount(toAccountId);
+    private void applyToAccount(Region<String, Account> region, String accountId, Account account,
+                                List<Integer> indexes, List<Adjustment> adjustments, AdjustmentResult[] results) {
+        for (int attempt = 1; ; attempt++) {
+            if (account == null) {
+                for (int index : indexes) {
+                    results[index] = AdjustmentResult.failed(index, adjustments.get(index), "Account not found");
+                }
+                return;
+            }
 
-        fromAccount.debit(amount);
-        toAccount.credit(amount);
+            // Adjust a copy; the read value is the expected old value of the replace
+            Account updated = CopyHelper.copy(account);
+            boolean changed = false;
+            for (int index : indexes) {
+                Adjustment adjustment = adjustments.get(index);
+                try {
+                    if (adjustment.getType() == AdjustmentType.DEPOSIT) {
+                        updated.credit(adjustment.getAmount());
+                    } else {
+                        updated.debit(adjustment.getAmount());
+                    }
+                    changed = true;
+                    results[index] = AdjustmentResult.applied(index, adjustment, updated.getBalance());
+                } catch (IllegalStateException e) {
+                    results[index] = AdjustmentResult.failed(index, adjustment, e.getMessage());
+                }
+            }
 
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+            if (!changed) {
+                return;
+            }
+            if (region.replace(accountId, account, updated)) {
+                AccountDeltaStats.recordFullValue(updated);
+                return;
+            }
 
-        log.info("Transferred {} from {} to {}", amount, fromAccountId, toAccountId);
-        return fromAccount;
+            // Changed since it was read
+            if (attempt == MAX_REPLACE_ATTEMPTS) {
+                log.warn("Adjustments to account {} conflicted {} times", accountId, attempt);
+                for (int index : indexes) {
+                    results[index] = AdjustmentResult.failed(index, adjustments.get(index),
+                        "Concurrent update - please retry");
+                }
+                return;
+            }
+            account = region.get(accountId);
+        }
     }
 
-    public List<Account> getAllAccounts() {
-        return (List<Account>) accountRepository.findAll();
+    private String validate(Adjustment adjustment) {
+        if (adjustment == null || adjustment.getAccountId() == null) {
+            return "Account id is required";
+        }
+        if (!Account.isRoutable(adjustment.getAccountId())) {
+            return "Account not found";
+        }
+        if (adjustment.getType() == null) {
+            return "Adjustment type is required";
+        }
+        if (adjustment.getAmount() == null || adjustment.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be positive";
+        }
+        return null;
+    }
+
+    /**
+     * Fetch one keyset page of accounts, optionally restricted to a customer.
+     */
+    public KeysetPage<Account> getAccountsPage(String after, int size, String customerId) {
+        return metrics.time(METRICS_SERVICE, "page", () -> {
+            if (customerId != null) {
+                return accountPager().fetch(after, size, "e.customerId = $2", customerId);
+            }
+            return accountPager().fetch(after, size, null);
+        });
+    }
+
+    /**
+     * Lazily stream all accounts page by page; heap use is bounded by one page.
+     */
+    public Stream<Account> streamAccounts(String customerId) {
+        if (customerId != null) {
+            return accountPager().stream(KeysetPager.DEFAULT_PAGE_SIZE, "e.customerId = $2", customerId);
+        }
+        return accountPager().stream(KeysetPager.DEFAULT_PAGE_SIZE, null);
+    }
+
+    private Account findAccount(String accountId) {
+        // Ids without a routing prefix cannot be keys of the Accounts region
+        if (!Account.isRoutable(accountId)) {
+            throw new ResourceNotFoundException("Account", accountId);
+        }
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", accountId));
+    }
+
+    private KeysetPager<Account> accountPager() {
+        return new KeysetPager<>(cache, "Accounts", "accountId", Account::getAccountId);
     }
 
     private String generateAccountNumber() {
         return String.format("%010d", System.nanoTime() % 10000000000L);
     }
+
+    public enum AdjustmentType {
+        DEPOSIT, WITHDRAW
+    }
+
+    /**
+     * A single deposit or withdrawal in a bulk request.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Adjustment {
+        private String accountId;
+        private AdjustmentType type;
+        private BigDecimal amount;
+    }
+
+    /**
+     * Per-item outcome of a bulk request, in the same order as the request.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AdjustmentResult {
+        private int index;
+        private String accountId;
+        private AdjustmentType type;
+        private BigDecimal amount;
+        private boolean success;
+        private String message;
+        private BigDecimal newBalance;
+
+        static AdjustmentResult applied(int index, Adjustment adjustment, BigDecimal newBalance) {
+            return AdjustmentResult.builder()
+                .index(index)
+                .accountId(adjustment.getAccountId())
+                .type(adjustment.getType())
+                .amount(adjustment.getAmount())
+                .success(true)
+                .newBalance(newBalance)
+                .build();
+        }
+
+        static AdjustmentResult failed(int index, Adjustment adjustment, String message) {
+            AdjustmentResultBuilder builder = AdjustmentResult.builder()
+                .index(index)
+                .success(false)
+                .message(message);
+            if (adjustment != null) {
+                builder.accountId(adjustment.getAccountId())
+                    .type(adjustment.getType())
+                    .amount(adjustment.getAmount());
+            }
+            return builder.build();
+        }
+    }
 }
@@ -2,78 +2,113 @@ package com.example.geodedemo.service;
 
 import com.example.geodedemo.entity.Customer;
 import com.example.geodedemo.exception.ResourceNotFoundException;
+import com.example.geodedemo.metrics.GeodeMetricsService;
+import com.example.geodedemo.paging.KeysetPage;
+import com.example.geodedemo.paging.KeysetPager;
 import com.example.geodedemo.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.CopyHelper;
+import org.apache.geode.cache.GemFireCache;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    private static final String METRICS_SERVICE = "customer";
+
     private final CustomerRepository customerRepository;
+    private final GemFireCache cache;
+    private final GeodeMetricsService metrics;
 
     public Customer createCustomer(Customer customer) {
-        customer.setCustomerId(UUID.randomUUID().toString());
-        customer.setStatus(Customer.CustomerStatus.ACTIVE);
-        customer.setCreatedAt(LocalDateTime.now());
-        customer.setUpdatedAt(LocalDateTime.now());
-
-        Customer saved = customerRepository.save(customer);
-        log.info("Created customer: {}", saved.getCustomerId());
-        return saved;
+        return metrics.time(METRICS_SERVICE, "create", () -> {
+            customer.setCustomerId(UUID.randomUUID().toString());
+            customer.setStatus(Customer.CustomerStatus.ACTIVE);
+            customer.setCreatedAt(LocalDateTime.now());
+            customer.setUpdatedAt(LocalDateTime.now());
+
+            Customer saved = customerRepository.save(customer);
+            log.info("Created customer: {}", saved.getCustomerId());
+            return saved;
+        });
     }
 
     public Customer getCustomer(String customerId) {
-        return customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", customerId));
+        return metrics.time(METRICS_SERVICE, "get", () -> findCustomer(customerId));
     }
 
     public Customer updateCustomer(String customerId, Customer updates) {
-        Customer customer = getCustomer(customerId);
-
-        if (updates.getName() != null) {
-            customer.setName(updates.getName());
-        }
-        if (updates.getEmail() != null) {
-            customer.setEmail(updates.getEmail());
-        }
-        if (updates.getPhone() != null) {
-            customer.setPhone(updates.getPhone());
-        }
-        if (updates.getAddress() != null) {
-            customer.setAddress(updates.getAddress());
-        }
-        customer.setUpdatedAt(LocalDateTime.now());
-
-        Customer saved = customerRepository.save(customer);
-        log.info("Updated customer: {}", customerId);
-        return saved;
+        return metrics.time(METRICS_SERVICE, "update", () -> {
+            // Copy so the near cache's shared instance is never mutated before the put
+            Customer customer = CopyHelper.copy(findCustomer(customerId));
+
+            if (updates.getName() != null) {
+                customer.setName(updates.getName());
+            }
+            if (updates.getEmail() != null) {
+                customer.setEmail(updates.getEmail());
+            }
+            if (updates.getPhone() != null) {
+                customer.setPhone(updates.getPhone());
+            }
+            if (updates.getAddress() != null) {
+                customer.setAddress(updates.getAddress());
+            }
+            customer.setUpdatedAt(LocalDateTime.now());
+
+            Customer saved = customerRepository.save(customer);
+            log.info("Updated customer: {}", customerId);
+            return saved;
+        });
     }
 
     public void deleteCustomer(String customerId) {
-        if (!customerRepository.existsById(customerId)) {
-            throw new ResourceNotFoundException("Customer", customerId);
-        }
-        customerRepository.deleteById(customerId);
-        log.info("Deleted customer: {}", customerId);
+        metrics.timeRun(METRICS_SERVICE, "delete", () -> {
+            if (!customerRepository.existsById(customerId)) {
+                throw new ResourceNotFoundException("Customer", customerId);
+            }
+            customerRepository.deleteById(customerId);
+            log.info("Deleted customer: {}", customerId);
+        });
+    }
+
+    /**
+     * Fetch one keyset page of customers.
+     */
+    public KeysetPage<Customer> getCustomersPage(String after, int size) {
+        return metrics.time(METRICS_SERVICE, "page", () -> customerPager().fetch(after, size, null));
+    }
+
+    /**
+     * Lazily stream all customers page by page; heap use is bounded by one page.
+     */
+    public Stream<Customer> streamCustomers() {
+        return customerPager().stream(KeysetPager.DEFAULT_PAGE_SIZE, null);
+    }
+
+    private Customer findCustomer(String customerId) {
+        return customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", customerId));
     }
 
-    public List<Customer> getAllCustomers() {
-        return (List<Customer>) customerRepository.findAll();
+    private KeysetPager<Customer> customerPager() {
+        return new KeysetPager<>(cache, "Customers", "customerId", Customer::getCustomerId);
     }
 
     public List<Customer> findByStatus(Customer.CustomerStatus status) {
-        return customerRepository.findByStatus(status);
+        return metrics.time(METRICS_SERVICE, "by-status", () -> customerRepository.findByStatus(status));
     }
 
     public Customer findByEmail(String email) {
-        return customerRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", "email: " + email));
+        return metrics.time(METRICS_SERVICE, "by-email", () -> customerRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer", "email: " + email)));
     }
 }
@@ -2,28 +2,106 @@ package com.example.geodedemo.service;
 
 import com.example.geodedemo.entity.Account;
 import com.example.geodedemo.exception.ResourceNotFoundException;
-import lombok.RequiredArgsConstructor;
+import com.example.geodedemo.function.AccountBatchUpdateFunction.BatchUpdateOutcome;
+import com.example.geodedemo.function.AccountBatchUpdateFunction.BatchUpdateStatus;
+import com.example.geodedemo.function.FunctionExecutionService;
+import com.example.geodedemo.metrics.GeodeMetricsService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.CacheTransactionManager;
 import org.apache.geode.cache.CommitConflictException;
 import org.apache.geode.cache.GemFireCache;
 import org.apache.geode.cache.Region;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service for handling ACID transactions in Geode.
  * Demonstrates distributed transaction support with rollback capability.
+ *
+ * Transfers go through a small pipeline to keep hot accounts from
+ * conflict-storming:
+ * - Lock striping: a transfer holds the stripe locks of both accounts while
+ *   its transaction runs, so transfers from this instance that touch the
+ *   same account take turns instead of failing each other's commit.
+ * - Micro-batching: transfers between the same two accounts (either
+ *   direction) queue up while the pair is locked; whoever gets the locks
+ *   next applies up to max-batch-size of them in one transaction. Each
+ *   transfer still gets its own result, and one with insufficient balance
+ *   fails alone.
+ * - Retry: a CommitConflictException (a write from another instance or
+ *   the servers) is retried up to max-attempts times, with full-jitter
+ *   exponential backoff, before "Transaction conflict - please retry" is
+ *   returned. The stripe locks are released while backing off, so other
+ *   pairs on the same stripes keep going; callers whose transfer is in the
+ *   batch being retried wait for its result.
+ *
+ * Accounts are routed by customer id (see Account), so a transfer between
+ * two accounts of the same customer runs its transaction on one member.
+ *
+ * Metrics: geode.transaction.conflicts{type, resolution=retried|exhausted},
+ * geode.transaction.attempts{type} and geode.transaction.batch.size{type}.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TransactionService {
 
+    private static final String TRANSFER = "transfer";
+
     private final GemFireCache cache;
+    private final GeodeMetricsService metrics;
+    private final FunctionExecutionService functionExecutionService;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int maxBatchSize;
+    private final ReentrantLock[] stripes;
+
+    // Transfers waiting for their account pair's locks, by pair
+    private final ConcurrentMap<List<String>, Queue<PendingTransfer>> pendingTransfers = new ConcurrentHashMap<>();
+
+    // Transaction ids: a random prefix per instance and a sequence, rather than a UUID per call
+    private final String transactionIdPrefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    private final AtomicLong transactionSequence = new AtomicLong();
+
+    public TransactionService(GemFireCache cache, GeodeMetricsService metrics,
+                              FunctionExecutionService functionExecutionService,
+                              @Value("${app.transactions.retry.max-attempts:5}") int maxAttempts,
+                              @Value("${app.transactions.retry.initial-backoff-ms:5}") long initialBackoffMs,
+                              @Value("${app.transactions.retry.max-backoff-ms:200}") long maxBackoffMs,
+                              @Value("${app.transactions.lock-stripes:256}") int lockStripes,
+                              @Value("${app.transactions.max-batch-size:64}") int maxBatchSize) {
+        if (maxAttempts <= 0 || initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs
+            || lockStripes <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Invalid transaction configuration");
+        }
+        this.cache = cache;
+        this.metrics = metrics;
+        this.functionExecutionService = functionExecutionService;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxBatchSize = maxBatchSize;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
 
     @SuppressWarnings("unchecked")
     private Region<String, Account> getAccountRegion() {
@@ -35,79 +113,203 @@ public class TransactionService {
      * Uses Geode's CacheTransactionManager for distributed transactions.
      */
     public TransferResult transferWithTransaction(String fromAccountId, String toAccountId, BigDecimal amount) {
-        String transactionId = UUID.randomUUID().toString();
-        CacheTransactionManager txManager = cache.getCacheTransactionManager();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            TransferResult result = transfer(fromAccountId, toAccountId, amount);
+            success = result.isSuccess();
+            return result;
+        } finally {
+            metrics.recordTransaction(TRANSFER, System.nanoTime() - start, success);
+        }
+    }
 
-        log.info("Starting transaction {} - Transfer {} from {} to {}",
-            transactionId, amount, fromAccountId, toAccountId);
+    private TransferResult transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        // Ids without a routing prefix cannot be keys of the Accounts region
+        for (String accountId : List.of(fromAccountId, toAccountId)) {
+            if (!Account.isRoutable(accountId)) {
+                throw new ResourceNotFoundException("Account", accountId);
+            }
+        }
 
-        try {
-            // Begin transaction
-            txManager.begin();
+        PendingTransfer transfer = new PendingTransfer(nextTransactionId(), fromAccountId, toAccountId, amount);
+        // Not a joined string: account ids themselves contain '|'
+        List<String> pair = fromAccountId.compareTo(toAccountId) <= 0
+            ? List.of(fromAccountId, toAccountId)
+            : List.of(toAccountId, fromAccountId);
 
-            // Get accounts within transaction
-            Account fromAccount = getAccountRegion().get(fromAccountId);
-            Account toAccount = getAccountRegion().get(toAccountId);
+        // Keep the queue itself: if it is removed from the map before this transfer's turn,
+        // the transfer is still drained from it below
+        Queue<PendingTransfer> queue = pendingTransfers.computeIfAbsent(pair, p -> new ConcurrentLinkedQueue<>());
+        queue.add(transfer);
 
-            if (fromAccount == null) {
-                txManager.rollback();
-                throw new ResourceNotFoundException("Account", fromAccountId);
+        // Lock in stripe order, so two transfers over the same stripes cannot deadlock
+        int a = stripe(fromAccountId);
+        int b = stripe(toAccountId);
+        ReentrantLock first = stripes[Math.min(a, b)];
+        ReentrantLock second = stripes[Math.max(a, b)];
+        // A batch that hit a commit conflict, retried after backing off without the locks
+        List<PendingTransfer> retry = null;
+        int attempt = 0;
+        while (true) {
+            first.lock();
+            second.lock();
+            try {
+                List<PendingTransfer> batch = retry;
+                if (batch == null) {
+                    // Otherwise an earlier lock holder already applied it
+                    if (transfer.isDone()) {
+                        break;
+                    }
+                    batch = new ArrayList<>();
+                    PendingTransfer next;
+                    while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                        batch.add(next);
+                    }
+                    if (batch.isEmpty()) {
+                        // In a batch another caller is backing off to retry
+                        break;
+                    }
+                    attempt = 0;
+                }
+                attempt++;
+                retry = executeBatch(batch, attempt) ? batch : null;
+            } finally {
+                second.unlock();
+                first.unlock();
             }
-            if (toAccount == null) {
-                txManager.rollback();
-                throw new ResourceNotFoundException("Account", toAccountId);
+            if (retry != null && !backoff(attempt)) {
+                rejectConflicted(retry, attempt);
+                retry = null;
             }
+        }
+        if (queue.isEmpty()) {
+            pendingTransfers.remove(pair, queue);
+        }
 
-            // Validate balance
-            if (fromAccount.getBalance().compareTo(amount) < 0) {
-                txManager.rollback();
-                return TransferResult.builder()
-                    .transactionId(transactionId)
-                    .success(false)
-                    .message("Insufficient balance")
-                    .fromBalance(fromAccount.getBalance())
-                    .toBalance(toAccount.getBalance())
-                    .build();
+        transfer.await();
+        if (transfer.error != null) {
+            throw transfer.error;
+        }
+        return transfer.result;
+    }
+
+    /**
+     * Apply a batch of transfers between one pair of accounts; called with the pair's locks held.
+     *
+     * @return true if it hit a commit conflict and should be retried after backing off
+     */
+    private boolean executeBatch(List<PendingTransfer> batch, int attempt) {
+        if (attempt == 1) {
+            metrics.recordBatchSize(TRANSFER, batch.size());
+        }
+        try {
+            applyBatch(batch);
+            metrics.recordAttempts(TRANSFER, attempt);
+            return false;
+
+        } catch (CommitConflictException e) {
+            boolean retry = attempt < maxAttempts;
+            metrics.recordConflict(TRANSFER, retry);
+            if (retry) {
+                log.debug("Transfer batch of {} conflicted on attempt {}, retrying: {}",
+                    batch.size(), attempt, e.getMessage());
+                return true;
             }
+            log.warn("Transfer batch of {} failed due to conflict after {} attempts: {}",
+                batch.size(), attempt, e.getMessage());
+            rejectConflicted(batch, attempt);
+            return false;
 
-            // Perform transfer
-            fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-            fromAccount.setUpdatedAt(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Transfer batch of {} failed: {}", batch.size(), e.getMessage());
+            for (PendingTransfer transfer : batch) {
+                transfer.fail(e);
+            }
+            return false;
+        }
+    }
+
+    private void rejectConflicted(List<PendingTransfer> batch, int attempts) {
+        metrics.recordAttempts(TRANSFER, attempts);
+        for (PendingTransfer transfer : batch) {
+            transfer.complete(TransferResult.builder()
+                .transactionId(transfer.transactionId)
+                .success(false)
+                .message("Transaction conflict - please retry")
+                .build());
+        }
+    }
 
-            toAccount.setBalance(toAccount.getBalance().add(amount));
-            toAccount.setUpdatedAt(LocalDateTime.now());
+    private void applyBatch(List<PendingTransfer> batch) {
+        CacheTransactionManager txManager = cache.getCacheTransactionManager();
+        try {
+            // Begin transaction
+            txManager.begin();
 
-            // Update both accounts
-            getAccountRegion().put(fromAccountId, fromAccount);
-            getAccountRegion().put(toAccountId, toAccount);
+            // Get both accounts within transaction, once for the whole batch
+            Map<String, Account> accounts = new HashMap<>(4);
+            PendingTransfer first = batch.get(0);
+            for (String accountId : List.of(first.fromAccountId, first.toAccountId)) {
+                if (!accounts.containsKey(accountId)) {
+                    Account account = getAccountRegion().get(accountId);
+                    if (account == null) {
+                        throw new ResourceNotFoundException("Account", accountId);
+                    }
+                    accounts.put(accountId, account);
+                }
+            }
 
-            // Commit transaction
-            txManager.commit();
+            List<TransferResult> results = new ArrayList<>(batch.size());
+            boolean changed = false;
+            for (PendingTransfer transfer : batch) {
+                Account fromAccount = accounts.get(transfer.fromAccountId);
+                Account toAccount = accounts.get(transfer.toAccountId);
 
-            log.info("Transaction {} committed successfully", transactionId);
+                // Validate balance; only this transfer fails
+                if (fromAccount.getBalance().compareTo(transfer.amount) < 0) {
+                    results.add(TransferResult.builder()
+                        .transactionId(transfer.transactionId)
+                        .success(false)
+                        .message("Insufficient balance")
+                        .fromBalance(fromAccount.getBalance())
+                        .toBalance(toAccount.getBalance())
+                        .build());
+                    continue;
+                }
 
-            return TransferResult.builder()
-                .transactionId(transactionId)
-                .success(true)
-                .message("Transfer completed successfully")
-                .fromBalance(fromAccount.getBalance())
-                .toBalance(toAccount.getBalance())
-                .amount(amount)
-                .build();
+                // Perform transfer
+                LocalDateTime now = LocalDateTime.now();
+                fromAccount.setBalance(fromAccount.getBalance().subtract(transfer.amount));
+                fromAccount.setUpdatedAt(now);
+                toAccount.setBalance(toAccount.getBalance().add(transfer.amount));
+                toAccount.setUpdatedAt(now);
+                changed = true;
+                results.add(TransferResult.builder()
+                    .transactionId(transfer.transactionId)
+                    .success(true)
+                    .message("Transfer completed successfully")
+                    .fromBalance(fromAccount.getBalance())
+                    .toBalance(toAccount.getBalance())
+                    .amount(transfer.amount)
+                    .build());
+            }
 
-        } catch (CommitConflictException e) {
-            log.error("Transaction {} failed due to conflict: {}", transactionId, e.getMessage());
-            if (txManager.exists()) {
+            if (changed) {
+                // Update both accounts and commit transaction
+                accounts.forEach(getAccountRegion()::put);
+                txManager.commit();
+            } else {
                 txManager.rollback();
             }
-            return TransferResult.builder()
-                .transactionId(transactionId)
-                .success(false)
-                .message("Transaction conflict - please retry")
-                .build();
 
-        } catch (Exception e) {
-            log.error("Transaction {} failed: {}", transactionId, e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+            log.debug("Transfer batch of {} between {} and {} committed",
+                batch.size(), first.fromAccountId, first.toAccountId);
+
+        } catch (RuntimeException e) {
             if (txManager.exists()) {
                 txManager.rollback();
             }
@@ -116,53 +318,174 @@ public class TransactionService {
     }
 
     /**
-     * Batch update multiple accounts in a single transaction.
+     * Sleep a random time up to initial-backoff-ms * 2^(attempt - 1), capped at max-backoff-ms.
+     *
+     * @return false if interrupted
      */
-    public boolean batchUpdateWithTransaction(java.util.Map<String, BigDecimal> adjustments) {
-        CacheTransactionManager txManager = cache.getCacheTransactionManager();
-        String transactionId = UUID.randomUUID().toString();
+    private boolean backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int stripe(String accountId) {
+        int h = accountId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), stripes.length);
+    }
 
-        log.info("Starting batch transaction {} with {} accounts", transactionId, adjustments.size());
+    private String nextTransactionId() {
+        return transactionIdPrefix + transactionSequence.incrementAndGet();
+    }
 
+    /**
+     * Batch update multiple accounts, validated and applied on the servers holding them
+     * (AccountBatchUpdateFunction) rather than read and written one by one from here.
+     *
+     * Every account is validated first and nothing is applied if any would fail. Each
+     * member then applies its accounts in one local transaction; should an account have
+     * changed in between, only that member's part is rolled back. The result has an
+     * outcome per account, in request order.
+     */
+    public BatchUpdateResult batchUpdateWithTransaction(Map<String, BigDecimal> adjustments) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            txManager.begin();
+            BatchUpdateResult result = batchUpdate(adjustments);
+            success = result.isSuccess();
+            return result;
+        } finally {
+            metrics.recordTransaction("batch", System.nanoTime() - start, success);
+        }
+    }
 
-            for (var entry : adjustments.entrySet()) {
-                String accountId = entry.getKey();
-                BigDecimal adjustment = entry.getValue();
+    private BatchUpdateResult batchUpdate(Map<String, BigDecimal> adjustments) {
+        String transactionId = nextTransactionId();
+        metrics.recordBatchSize("batch", adjustments.size());
 
-                Account account = getAccountRegion().get(accountId);
-                if (account == null) {
-                    txManager.rollback();
-                    throw new ResourceNotFoundException("Account", accountId);
-                }
+        Map<String, BatchUpdateOutcome> outcomes = new HashMap<>();
+        Map<String, BigDecimal> routable = new HashMap<>();
+        for (var entry : adjustments.entrySet()) {
+            String accountId = entry.getKey();
+            if (entry.getValue() == null) {
+                outcomes.put(accountId, BatchUpdateOutcome.failed(accountId, null, "Adjustment is required"));
+            } else if (!Account.isRoutable(accountId)) {
+                // Ids without a routing prefix cannot be keys of the Accounts region
+                outcomes.put(accountId, BatchUpdateOutcome.notFound(accountId, entry.getValue()));
+            } else {
+                routable.put(accountId, entry.getValue());
+            }
+        }
 
-                BigDecimal newBalance = account.getBalance().add(adjustment);
-                if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                    txManager.rollback();
-                    log.warn("Batch transaction {} rolled back - insufficient balance for account {}",
-                        transactionId, accountId);
-                    return false;
+        boolean applied = false;
+        if (outcomes.isEmpty() && !routable.isEmpty()) {
+            for (BatchUpdateOutcome failure : functionExecutionService.executeBatchUpdate(routable, false)) {
+                outcomes.put(failure.getAccountId(), failure);
+            }
+            if (outcomes.isEmpty()) {
+                for (BatchUpdateOutcome outcome : functionExecutionService.executeBatchUpdate(routable, true)) {
+                    outcomes.put(outcome.getAccountId(), outcome);
                 }
+                applied = true;
+            }
+        }
 
-                account.setBalance(newBalance);
-                account.setUpdatedAt(LocalDateTime.now());
-                getAccountRegion().put(accountId, account);
+        List<BatchUpdateOutcome> results = new ArrayList<>(adjustments.size());
+        int updated = 0;
+        for (var entry : adjustments.entrySet()) {
+            BatchUpdateOutcome outcome = outcomes.get(entry.getKey());
+            if (outcome == null) {
+                outcome = applied
+                    ? BatchUpdateOutcome.failed(entry.getKey(), entry.getValue(), "No result from server")
+                    : BatchUpdateOutcome.rolledBack(entry.getKey(), entry.getValue());
+            } else if (outcome.getStatus() == BatchUpdateStatus.APPLIED) {
+                updated++;
             }
+            results.add(outcome);
+        }
 
-            txManager.commit();
-            log.info("Batch transaction {} committed successfully", transactionId);
-            return true;
+        boolean success = updated == adjustments.size();
+        log.info("Batch transaction {}: {} of {} accounts updated", transactionId, updated, adjustments.size());
+        return BatchUpdateResult.builder()
+            .transactionId(transactionId)
+            .success(success)
+            .accountsUpdated(updated)
+            .results(results)
+            .build();
+    }
 
-        } catch (Exception e) {
-            log.error("Batch transaction {} failed: {}", transactionId, e.getMessage());
-            if (txManager.exists()) {
-                txManager.rollback();
+    /**
+     * A transfer waiting in its pair's queue. Completed by whichever caller took it
+     * from the queue; read by its own caller after await().
+     */
+    private static class PendingTransfer {
+        final String transactionId;
+        final String fromAccountId;
+        final String toAccountId;
+        final BigDecimal amount;
+        final CountDownLatch completed = new CountDownLatch(1);
+        TransferResult result;
+        RuntimeException error;
+
+        PendingTransfer(String transactionId, String fromAccountId, String toAccountId, BigDecimal amount) {
+            this.transactionId = transactionId;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amount = amount;
+        }
+
+        void complete(TransferResult result) {
+            this.result = result;
+            completed.countDown();
+        }
+
+        void fail(RuntimeException error) {
+            this.error = error;
+            completed.countDown();
+        }
+
+        boolean isDone() {
+            return completed.getCount() == 0;
+        }
+
+        /**
+         * Wait for the caller applying this transfer; it completes it within
+         * max-attempts backoffs, so this does not give up on interrupt.
+         */
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    completed.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
-            throw e;
         }
     }
 
+    /**
+     * Result object for batch updates.
+     */
+    @lombok.Data
+    @lombok.Builder
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class BatchUpdateResult {
+        private String transactionId;
+        private boolean success;
+        private int accountsUpdated;
+        private List<BatchUpdateOutcome> results;
+    }
+
     /**
      * Result object for transfer operations.
      */
@@ -0,0 +1,130 @@
+package com.example.geodedemo.loadtest;
+
+import com.example.geodedemo.async.AccountAggregate;
+import com.example.geodedemo.async.DeadLetterEvent;
+import com.example.geodedemo.function.AccountAggregationFunction;
+import com.example.geodedemo.function.AccountBatchUpdateFunction;
+import com.example.geodedemo.function.AccountTransferFunction;
+import com.example.geodedemo.function.AccountsByCustomerFunction;
+import com.example.geodedemo.metrics.MemberStatsFunction;
+import com.example.geodedemo.serialization.CompactEntityPdxSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.PartitionAttributesFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.lucene.LuceneServiceProvider;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+import org.apache.geode.cache.util.StringPrefixPartitionResolver;
+import org.apache.geode.distributed.LocatorLauncher;
+import org.apache.geode.distributed.ServerLauncher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Entry point of the locator and server JVMs started by EmbeddedCluster.
+ * The working directory is the member's own directory.
+ *
+ *   locator <port>
+ *   server <name> <server-port> <locators>
+ *
+ * Servers create the regions of docker-compose-advanced.yaml (Lucene index
+ * on Customers included) and register the application functions, then write
+ * the READY_FILE the parent waits for.
+ */
+public final class ClusterMember {
+
+    static final String READY_FILE = "ready";
+
+    private ClusterMember() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        switch (args[0]) {
+            case "locator":
+                runLocator(Integer.parseInt(args[1]));
+                break;
+            case "server":
+                runServer(args[1], Integer.parseInt(args[2]), args[3]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown member type " + args[0]);
+        }
+    }
+
+    private static void runLocator(int port) throws IOException {
+        LocatorLauncher launcher = new LocatorLauncher.Builder()
+            .setMemberName("load-test-locator")
+            .setPort(port)
+            .setHostnameForClients("localhost")
+            .set("enable-cluster-configuration", "false")
+            .set("jmx-manager", "false")
+            .set("http-service-port", "0")
+            .set("enable-network-partition-detection", "false")
+            .set("log-level", "warn")
+            .build();
+        launcher.start();
+        ready();
+        launcher.waitOnLocator();
+    }
+
+    private static void runServer(String name, int serverPort, String locators) throws IOException {
+        ServerLauncher launcher = new ServerLauncher.Builder()
+            .setMemberName(name)
+            .setServerPort(serverPort)
+            .setHostNameForClients("localhost")
+            // No fallback: function results and other types go with Java serialization,
+            // as they do from servers without the application's PDX serializer
+            .setPdxSerializer(new CompactEntityPdxSerializer(null))
+            .setPdxReadSerialized(false)
+            .set("locators", locators)
+            // Lucene's index writes replicate while the put that triggered them waits for acks;
+            // on shared peer connections the two can block each other
+            .set("conserve-sockets", "false")
+            .set("enable-network-partition-detection", "false")
+            .set("log-level", "warn")
+            .build();
+        launcher.start();
+
+        Cache cache = CacheFactory.getAnyInstance();
+        createRegions(cache);
+        FunctionService.registerFunction(new AccountAggregationFunction());
+        FunctionService.registerFunction(new AccountTransferFunction());
+        FunctionService.registerFunction(new AccountsByCustomerFunction());
+        FunctionService.registerFunction(new AccountBatchUpdateFunction());
+        FunctionService.registerFunction(new MemberStatsFunction());
+        ready();
+        launcher.waitOnServer();
+    }
+
+    private static void createRegions(Cache cache) {
+        // The index has to exist before its region
+        LuceneServiceProvider.get(cache).createIndexFactory()
+            .addField("name")
+            .addField("email")
+            .create("customerIndex", "Customers");
+        Region<?, ?> customers = cache.createRegionFactory(RegionShortcut.PARTITION_REDUNDANT).create("Customers");
+        // Accounts routed by the customer id prefix of their key, into their customer's bucket
+        Region<?, ?> accounts = cache.<String, Object>createRegionFactory(RegionShortcut.PARTITION_REDUNDANT)
+            .setPartitionAttributes(new PartitionAttributesFactory<String, Object>()
+                .setRedundantCopies(1)
+                .setColocatedWith("Customers")
+                .setPartitionResolver(new StringPrefixPartitionResolver())
+                .create())
+            .create("Accounts");
+        // Create all buckets now rather than during the data load: with the Lucene index each
+        // Customers bucket also creates its index file and queue buckets, which on a small
+        // machine takes longer than the client's read timeout
+        PartitionRegionHelper.assignBucketsToPartitions(customers);
+        PartitionRegionHelper.assignBucketsToPartitions(accounts);
+        cache.createRegionFactory(RegionShortcut.REPLICATE).create(AccountAggregate.REGION_NAME);
+        cache.createRegionFactory(RegionShortcut.REPLICATE).create(DeadLetterEvent.REGION_NAME);
+    }
+
+    private static void ready() throws IOException {
+        Files.writeString(Paths.get(READY_FILE), Long.toString(ProcessHandle.current().pid()));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.geodedemo.loadtest;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.entity.Customer;
+import org.apache.geode.cache.Region;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Customers and accounts loaded before the run, and random picks among them.
+ * Ids are derived from an index, so workers need no shared state to choose one.
+ */
+final class Dataset {
+
+    // Each putAll is one client operation and has to finish within the pool read timeout;
+    // the Lucene index on Customers makes large ones slow on a small machine
+    private static final int LOAD_CHUNK = 100;
+    private static final Account.AccountType[] ACCOUNT_TYPES = Account.AccountType.values();
+    // Large enough that transfers and deposits never run an account dry during a run
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    private final int customers;
+    private final int accounts;
+
+    Dataset(int customers, int accounts) {
+        this.customers = customers;
+        this.accounts = accounts;
+    }
+
+    void load(Region<String, Customer> customerRegion, Region<String, Account> accountRegion) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Customer> customerBatch = new HashMap<>();
+        for (int i = 0; i < customers; i++) {
+            Customer customer = Customer.builder()
+                .customerId(customerId(i))
+                .name("Customer " + i)
+                .email("customer" + i + "@example.com")
+                .phone(String.format("+886-2-%08d", i))
+                .address(i + " Zhongxiao East Road, Taipei")
+                .status(Customer.CustomerStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+            customerBatch.put(customer.getCustomerId(), customer);
+            if (customerBatch.size() == LOAD_CHUNK) {
+                customerRegion.putAll(customerBatch);
+                customerBatch.clear();
+            }
+        }
+        customerRegion.putAll(customerBatch);
+
+        Map<String, Account> accountBatch = new HashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            Account account = Account.builder()
+                .accountId(accountId(i))
+                .customerId(customerId(i % customers))
+                .accountNumber(String.format("LT-%010d", i))
+                .accountType(ACCOUNT_TYPES[i % ACCOUNT_TYPES.length])
+                .balance(OPENING_BALANCE)
+                .creditLimit(BigDecimal.ZERO)
+                .status(Account.AccountStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+            accountBatch.put(account.getAccountId(), account);
+            if (accountBatch.size() == LOAD_CHUNK) {
+                accountRegion.putAll(accountBatch);
+                accountBatch.clear();
+            }
+        }
+        accountRegion.putAll(accountBatch);
+    }
+
+    String randomCustomerId(Random random) {
+        return customerId(random.nextInt(customers));
+    }
+
+    String randomAccountId(Random random) {
+        return accountId(random.nextInt(accounts));
+    }
+
+    /**
+     * A second account, different from the first.
+     */
+    String otherAccountId(Random random, String accountId) {
+        String other = randomAccountId(random);
+        while (accounts > 1 && other.equals(accountId)) {
+            other = randomAccountId(random);
+        }
+        return other;
+    }
+
+    Account.AccountType randomAccountType(Random random) {
+        return ACCOUNT_TYPES[random.nextInt(ACCOUNT_TYPES.length)];
+    }
+
+    /**
+     * An email prefix query such as "customer42*", matching customer42,
+     * customer420-429 and so on: one term for Lucene, a substring for the
+     * fallback scan.
+     */
+    String randomEmailQuery(Random random) {
+        return "customer" + random.nextInt(Math.max(1, customers / 10)) + "*";
+    }
+
+    private static String customerId(int i) {
+        return String.format("LT-CUST-%08d", i);
+    }
+
+    // Routed with its customer, as AccountService would create it
+    private String accountId(int i) {
+        return customerId(i % customers) + Account.ROUTING_DELIMITER + String.format("LT-ACC-%08d", i);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.geodedemo.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A locator and N cache servers on this machine, each in its own JVM started
+ * from this JVM's classpath (Geode allows one cache per JVM, and the
+ * application's client cache lives in this one).
+ *
+ * Member logs go to work-dir/member-name/member.log.
+ */
+final class EmbeddedCluster implements AutoCloseable {
+
+    private static final long START_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(3);
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+    // Geode 1.14 peer messaging, Lucene indexing and statistics reach into JDK internals
+    private static final List<String> JAVA_17_FLAGS = List.of(
+        "--add-opens=java.base/java.nio=ALL-UNNAMED",
+        "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens=java.base/java.lang=ALL-UNNAMED",
+        "--add-opens=java.base/java.util=ALL-UNNAMED",
+        "--add-opens=jdk.management/com.sun.management.internal=ALL-UNNAMED",
+        "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-exports=java.management/com.sun.jmx.remote.security=ALL-UNNAMED");
+
+    private final Path workDir;
+    private final String serverHeap;
+    private final List<Process> members = new ArrayList<>();
+    private final Thread shutdownHook = new Thread(this::stopMembers, "load-test-cluster-shutdown");
+    private String locators;
+
+    EmbeddedCluster(Path workDir, String serverHeap) {
+        this.workDir = workDir;
+        this.serverHeap = serverHeap;
+    }
+
+    /**
+     * Start the locator, then the servers one after another, each ready for clients when this returns.
+     */
+    void start(int servers) throws IOException, InterruptedException {
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        int locatorPort = freePort();
+        locators = "localhost[" + locatorPort + "]";
+        startMember("locator", "256m", "locator", Integer.toString(locatorPort));
+
+        for (int i = 1; i <= servers; i++) {
+            String name = "server" + i;
+            startMember(name, serverHeap, "server", name, Integer.toString(freePort()), locators);
+        }
+    }
+
+    String locators() {
+        return locators;
+    }
+
+    @Override
+    public void close() {
+        stopMembers();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down
+        }
+    }
+
+    private void startMember(String name, String heap, String... args) throws IOException, InterruptedException {
+        Path dir = workDir.resolve(name);
+        Files.createDirectories(dir);
+        Path ready = dir.resolve(ClusterMember.READY_FILE);
+        Files.deleteIfExists(ready);
+        Path log = dir.resolve("member.log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xms" + heap);
+        command.add("-Xmx" + heap);
+        command.addAll(JAVA_17_FLAGS);
+        command.add("-cp");
+        command.add(classPath());
+        command.add(ClusterMember.class.getName());
+        command.addAll(List.of(args));
+
+        Process process = new ProcessBuilder(command)
+            .directory(dir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        synchronized (this) {
+            members.add(process);
+        }
+
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+        while (!Files.exists(ready)) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ", see " + log);
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException(name + " did not start within 3 minutes, see " + log);
+            }
+            Thread.sleep(200);
+        }
+        System.out.printf("Started %s (pid %d)%n", name, process.pid());
+    }
+
+    /**
+     * Servers first, then the locator, so the servers can leave the cluster cleanly.
+     */
+    private synchronized void stopMembers() {
+        for (int i = members.size() - 1; i >= 0; i--) {
+            Process process = members.get(i);
+            process.destroy();
+            try {
+                if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        members.clear();
+    }
+
+    /**
+     * This JVM's class path with absolute entries, as the members run in their own directories.
+     */
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(Path.of(entry).toAbsolutePath().toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
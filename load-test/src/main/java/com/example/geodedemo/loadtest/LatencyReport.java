@@ -0,0 +1,118 @@
+package com.example.geodedemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Result of a run: per-operation response and service time histograms
+ * (microseconds) and error counts.
+ *
+ * print() writes percentile tables in milliseconds; writeDistributions()
+ * writes one .hgrm file per operation and latency, which HdrHistogram's
+ * plotter (hdrhistogram.github.io/HdrHistogram/plotFiles.html) can chart
+ * against earlier runs.
+ */
+final class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final int targetRate;
+    private final Duration duration;
+    private final double seconds;
+    private final Map<OperationType, Histogram> response;
+    private final Map<OperationType, Histogram> service;
+    private final Map<OperationType, Long> errors;
+    private final Map<String, Long> errorMessages;
+
+    LatencyReport(int targetRate, Duration duration,
+                  Map<OperationType, Histogram> response, Map<OperationType, Histogram> service,
+                  Map<OperationType, Long> errors, Map<String, Long> errorMessages) {
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.seconds = duration.toMillis() / 1000.0;
+        this.response = response;
+        this.service = service;
+        this.errors = errors;
+        this.errorMessages = errorMessages;
+    }
+
+    void print(PrintStream out) {
+        long total = total(response).getTotalCount();
+        out.printf("%nThroughput: %.1f ops/s achieved, %d ops/s target, %d operations in %s%n",
+            total / seconds, targetRate, total, duration);
+
+        out.printf("%nResponse time, from the intended start (corrected for coordinated omission), ms%n");
+        printTable(out, response);
+        out.printf("%nService time, from the actual start (uncorrected), ms%n");
+        printTable(out, service);
+
+        if (!errorMessages.isEmpty()) {
+            out.printf("%nMost frequent errors%n");
+            errorMessages.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(10)
+                .forEach(e -> out.printf("%10d  %s%n", e.getValue(), e.getKey()));
+        }
+    }
+
+    void writeDistributions(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        write(dir.resolve("all-response.hgrm"), total(response));
+        write(dir.resolve("all-service.hgrm"), total(service));
+        for (OperationType type : OperationType.values()) {
+            if (response.get(type).getTotalCount() > 0) {
+                write(dir.resolve(type.key() + "-response.hgrm"), response.get(type));
+                write(dir.resolve(type.key() + "-service.hgrm"), service.get(type));
+            }
+        }
+    }
+
+    private void printTable(PrintStream out, Map<OperationType, Histogram> histograms) {
+        out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "errors", "ops/s", "p50", "p90", "p99", "p99.9", "max");
+        long totalErrors = 0;
+        for (OperationType type : OperationType.values()) {
+            Histogram histogram = histograms.get(type);
+            if (histogram.getTotalCount() > 0) {
+                printRow(out, type.key(), histogram, errors.get(type));
+            }
+            totalErrors += errors.get(type);
+        }
+        printRow(out, "all", total(histograms), totalErrors);
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long errorCount) {
+        out.printf("%-10s %10d %8d %10.1f", name, histogram.getTotalCount(), errorCount,
+            histogram.getTotalCount() / seconds);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10.3f", histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+        }
+        out.printf(" %10.3f%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static Histogram total(Map<OperationType, Histogram> histograms) {
+        Histogram total = null;
+        for (Histogram histogram : histograms.values()) {
+            if (total == null) {
+                total = histogram.copy();
+            } else {
+                total.add(histogram);
+            }
+        }
+        return total;
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
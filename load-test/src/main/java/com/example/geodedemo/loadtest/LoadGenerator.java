@@ -0,0 +1,192 @@
+package com.example.geodedemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load at a fixed rate.
+ *
+ * Worker w of N issues its k-th operation at start + (k * N + w) / rate,
+ * whatever happened to the previous one, so a stall does not lower the
+ * offered load. Two latencies are recorded per operation:
+ * - response time: from the intended start; includes the time spent queued
+ *   behind a slow operation, i.e. corrected for coordinated omission
+ * - service time: from the actual start; what a closed-loop tool would report
+ *
+ * Values are recorded in microseconds; operations intended to start during
+ * the warmup are not recorded.
+ */
+final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final LoadTarget target;
+    private final WorkloadMix mix;
+    private final int rate;
+    private final int threads;
+
+    private final Map<OperationType, Recorder> responseRecorders = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Recorder> serviceRecorders = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, LongAdder> errors = new EnumMap<>(OperationType.class);
+    private final Map<String, LongAdder> errorMessages = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+
+    LoadGenerator(LoadTarget target, WorkloadMix mix, int rate, int threads) {
+        this.target = target;
+        this.mix = mix;
+        this.rate = rate;
+        this.threads = threads;
+        for (OperationType type : OperationType.values()) {
+            responseRecorders.put(type, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            serviceRecorders.put(type, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            errors.put(type, new LongAdder());
+        }
+    }
+
+    LatencyReport run(Duration warmup, Duration duration, Duration reportInterval) throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+        double periodNanos = 1e9 * threads / rate;
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            long offset = (long) (1e9 * w / rate);
+            Thread worker = new Thread(() -> work(start + offset, periodNanos, measureStart, end),
+                "load-worker-" + w);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        Map<OperationType, Histogram> response = newHistograms();
+        Map<OperationType, Histogram> service = newHistograms();
+        long lastCompleted = 0;
+        long last = start;
+        long next = start;
+        do {
+            next = Math.min(next + reportInterval.toNanos(), end);
+            long now = sleepUntil(next);
+            long done = completed.sum();
+            double opsPerSecond = (done - lastCompleted) / ((now - last) / 1e9);
+            lastCompleted = done;
+            last = now;
+
+            Histogram interval = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            for (OperationType type : OperationType.values()) {
+                Histogram r = responseRecorders.get(type).getIntervalHistogram();
+                response.get(type).add(r);
+                interval.add(r);
+                service.get(type).add(serviceRecorders.get(type).getIntervalHistogram());
+            }
+            printProgress(now - start, now < measureStart, opsPerSecond, interval);
+        } while (next < end);
+
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        // Operations still running after the deadline are left out
+        for (OperationType type : OperationType.values()) {
+            response.get(type).add(responseRecorders.get(type).getIntervalHistogram());
+            service.get(type).add(serviceRecorders.get(type).getIntervalHistogram());
+        }
+
+        Map<OperationType, Long> errorCounts = new EnumMap<>(OperationType.class);
+        errors.forEach((type, count) -> errorCounts.put(type, count.sum()));
+        Map<String, Long> messages = new ConcurrentHashMap<>();
+        errorMessages.forEach((message, count) -> messages.put(message, count.sum()));
+        return new LatencyReport(rate, duration, response, service, errorCounts, messages);
+    }
+
+    private void work(long first, double periodNanos, long measureStart, long end) {
+        Random random = ThreadLocalRandom.current();
+        for (long k = 0; ; k++) {
+            long intended = first + (long) (k * periodNanos);
+            if (intended >= end) {
+                return;
+            }
+            long started = sleepUntil(intended);
+
+            OperationType type = mix.pick(random);
+            try {
+                target.execute(type, random);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (intended >= measureStart) {
+                    recordError(type, e);
+                }
+            }
+            long finished = System.nanoTime();
+            completed.increment();
+
+            if (intended >= measureStart) {
+                record(responseRecorders.get(type), finished - intended);
+                record(serviceRecorders.get(type), finished - started);
+            }
+        }
+    }
+
+    private void recordError(OperationType type, Exception e) {
+        errors.get(type).increment();
+        String message = type.key() + ": " + e.getClass().getSimpleName()
+            + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        if (message.length() > 200) {
+            message = message.substring(0, 200);
+        }
+        errorMessages.computeIfAbsent(message, key -> new LongAdder()).increment();
+    }
+
+    private static void record(Recorder recorder, long nanos) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * @return the time the wait ended, at or after deadline
+     */
+    private static long sleepUntil(long deadline) {
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            LockSupport.parkNanos(deadline - now);
+        }
+        return now;
+    }
+
+    private static Map<OperationType, Histogram> newHistograms() {
+        Map<OperationType, Histogram> histograms = new EnumMap<>(OperationType.class);
+        for (OperationType type : OperationType.values()) {
+            histograms.put(type, new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+        }
+        return histograms;
+    }
+
+    private void printProgress(long elapsedNanos, boolean warmingUp, double opsPerSecond, Histogram interval) {
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(elapsedNanos);
+        if (warmingUp) {
+            System.out.printf("[%4ds] warmup   %8.1f ops/s%n", elapsed, opsPerSecond);
+            return;
+        }
+        System.out.printf("[%4ds] measure  %8.1f ops/s  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms  (target %d ops/s)%n",
+            elapsed, opsPerSecond,
+            interval.getValueAtPercentile(50) / 1000.0,
+            interval.getValueAtPercentile(99) / 1000.0,
+            interval.getMaxValue() / 1000.0,
+            rate);
+    }
+}
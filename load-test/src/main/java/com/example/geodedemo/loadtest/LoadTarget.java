@@ -0,0 +1,12 @@
+package com.example.geodedemo.loadtest;
+
+import java.util.Random;
+
+/**
+ * Executes one operation of the mix. Anything thrown counts as an error;
+ * its latency is recorded all the same.
+ */
+interface LoadTarget {
+
+    void execute(OperationType type, Random random) throws Exception;
+}
@@ -0,0 +1,108 @@
+package com.example.geodedemo.loadtest;
+
+import com.example.geodedemo.GeodeDemoApplication;
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.entity.Customer;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.Region;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * End-to-end load test on one machine:
+ * 1. start a locator and cache servers (EmbeddedCluster), unless --locators is given
+ * 2. start the application in this JVM, connected to them as a client
+ * 3. load customers and accounts
+ * 4. run the operation mix at the target rate (LoadGenerator)
+ * 5. print response and service time percentiles, and write .hgrm files
+ *
+ * The load generator shares the machine with the cluster, so leave CPU
+ * headroom (watch the achieved rate against the target) when reading results.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        EmbeddedCluster cluster = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            String locators = options.locators;
+            if (options.embeddedCluster()) {
+                cluster = new EmbeddedCluster(options.workDir, options.serverHeap);
+                cluster.start(options.servers);
+                locators = cluster.locators();
+            }
+
+            application = startApplication(locators, options);
+            Dataset dataset = new Dataset(options.customers, options.accounts);
+            GemFireCache cache = application.getBean(GemFireCache.class);
+            long loadStart = System.nanoTime();
+            Region<String, Customer> customers = cache.getRegion("Customers");
+            Region<String, Account> accounts = cache.getRegion("Accounts");
+            dataset.load(customers, accounts);
+            System.out.printf("Loaded %d customers and %d accounts in %d ms%n",
+                options.customers, options.accounts, (System.nanoTime() - loadStart) / 1_000_000);
+
+            LoadTarget target;
+            if ("service".equals(options.target)) {
+                target = new ServiceTarget(application, dataset);
+            } else {
+                int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                target = new RestTarget("http://localhost:" + port, dataset);
+            }
+
+            System.out.printf("Running %s target at %d ops/s with %d workers for %s (warmup %s)%nMix: %s%n",
+                options.target, options.rate, options.threads, options.duration, options.warmup, options.mix);
+            LatencyReport report = new LoadGenerator(target, options.mix, options.rate, options.threads)
+                .run(options.warmup, options.duration, options.reportInterval);
+
+            report.print(System.out);
+            report.writeDistributions(options.out);
+            System.out.printf("%nPercentile distributions written to %s%n", options.out.toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (cluster != null) {
+                cluster.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String locators, LoadTestOptions options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.data.gemfire.pool.locators", locators);
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        // The application logs every request at INFO or DEBUG, which would be part of what is measured;
+        // failed operations are counted and summarized in the report instead of logged
+        properties.put("logging.level.com.example.geodedemo", "OFF");
+        properties.put("logging.level.org.apache.geode", "WARN");
+        properties.put("logging.level.org.springframework.data.gemfire", "WARN");
+        for (String arg : options.applicationArgs) {
+            int eq = arg.indexOf('=');
+            properties.put(arg.substring(2, eq > 0 ? eq : arg.length()), eq > 0 ? arg.substring(eq + 1) : "");
+        }
+
+        String[] args = properties.entrySet().stream()
+            .map(e -> "--" + e.getKey() + "=" + e.getValue())
+            .toArray(String[]::new);
+        return new SpringApplicationBuilder(GeodeDemoApplication.class).run(args);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.geodedemo.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line options, all in --name=value form.
+ *
+ * Options starting with --app., --spring., --server. or --management. are
+ * handed to the in-process application, e.g. --app.accounts.delta.enabled=true.
+ */
+public final class LoadTestOptions {
+
+    static final String USAGE = String.join("\n",
+        "Usage: java -jar load-test.jar [options] [--app.*=... application properties]",
+        "",
+        "  --target=rest|service   drive the REST API over HTTP, or call the services directly (default rest)",
+        "  --rate=N                target operations per second across all workers (default 500)",
+        "  --duration=D            measured run length, e.g. 60s, 5m (default 60s)",
+        "  --warmup=D              unmeasured run before it (default 15s)",
+        "  --threads=N             worker threads; needs rate x latency or more (default 64)",
+        "  --mix=SPEC              operation weights (default " + WorkloadMix.DEFAULT + ")",
+        "  --customers=N           customers loaded before the run (default 10000)",
+        "  --accounts=N            accounts loaded before the run (default 50000)",
+        "  --servers=N             cache servers to start (default 2)",
+        "  --server-heap=SIZE      -Xmx of each server (default 1g)",
+        "  --locators=HOST[PORT]   use a running cluster instead of starting one",
+        "  --report-interval=D     progress line period (default 5s)",
+        "  --out=DIR               percentile distributions (.hgrm) go here (default load-test-results)",
+        "  --work-dir=DIR          member working directories and logs (default load-test-work)");
+
+    private static final String[] APPLICATION_PREFIXES = {"--app.", "--spring.", "--server.", "--management.", "--logging."};
+
+    String target = "rest";
+    int rate = 500;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(15);
+    int threads = 64;
+    WorkloadMix mix = WorkloadMix.parse(WorkloadMix.DEFAULT);
+    int customers = 10_000;
+    int accounts = 50_000;
+    int servers = 2;
+    String serverHeap = "1g";
+    String locators;
+    Duration reportInterval = Duration.ofSeconds(5);
+    Path out = Paths.get("load-test-results");
+    Path workDir = Paths.get("load-test-work");
+    final List<String> applicationArgs = new ArrayList<>();
+
+    private LoadTestOptions() {
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (isApplicationArg(arg)) {
+                options.applicationArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "target":
+                    if (!"rest".equals(value) && !"service".equals(value)) {
+                        throw new IllegalArgumentException("--target must be rest or service");
+                    }
+                    options.target = value;
+                    break;
+                case "rate":
+                    options.rate = positive(name, Integer.parseInt(value));
+                    break;
+                case "duration":
+                    options.duration = parseDuration(value);
+                    break;
+                case "warmup":
+                    options.warmup = parseDuration(value);
+                    break;
+                case "threads":
+                    options.threads = positive(name, Integer.parseInt(value));
+                    break;
+                case "mix":
+                    options.mix = WorkloadMix.parse(value);
+                    break;
+                case "customers":
+                    options.customers = positive(name, Integer.parseInt(value));
+                    break;
+                case "accounts":
+                    options.accounts = positive(name, Integer.parseInt(value));
+                    break;
+                case "servers":
+                    options.servers = positive(name, Integer.parseInt(value));
+                    break;
+                case "server-heap":
+                    options.serverHeap = value;
+                    break;
+                case "locators":
+                    options.locators = value;
+                    break;
+                case "report-interval":
+                    options.reportInterval = parseDuration(value);
+                    break;
+                case "out":
+                    options.out = Paths.get(value);
+                    break;
+                case "work-dir":
+                    options.workDir = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.threads > options.rate) {
+            // Each worker paces at rate / threads; more workers than ops per second would mostly idle
+            options.threads = options.rate;
+        }
+        return options;
+    }
+
+    boolean embeddedCluster() {
+        return locators == null;
+    }
+
+    /**
+     * 500ms, 30s, 5m, 1h, or plain seconds.
+     */
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("h")) {
+            return Duration.ofHours(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private static boolean isApplicationArg(String arg) {
+        for (String prefix : APPLICATION_PREFIXES) {
+            if (arg.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.geodedemo.loadtest;
+
+/**
+ * Operations in the load mix, keyed by the name used in --mix.
+ */
+public enum OperationType {
+
+    CREATE_ACCOUNT("create"),
+    DEPOSIT("deposit"),
+    TRANSFER("transfer"),
+    CUSTOMER_LOOKUP("lookup"),
+    SEARCH("search"),
+    AGGREGATION("aggregate");
+
+    private final String key;
+
+    OperationType(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static OperationType fromKey(String key) {
+        for (OperationType type : values()) {
+            if (type.key.equals(key)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "', expected one of "
+            + "create, deposit, transfer, lookup, search, aggregate");
+    }
+}
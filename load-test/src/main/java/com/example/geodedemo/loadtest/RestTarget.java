@@ -0,0 +1,89 @@
+package com.example.geodedemo.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Drives the application's REST API over HTTP/1.1, reading and discarding
+ * each response body.
+ */
+final class RestTarget implements LoadTarget {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String AMOUNT = "10.00";
+
+    private final String baseUrl;
+    private final Dataset dataset;
+    private final HttpClient client;
+
+    RestTarget(String baseUrl, Dataset dataset) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    @Override
+    public void execute(OperationType type, Random random) throws IOException, InterruptedException {
+        HttpRequest request;
+        switch (type) {
+            case CREATE_ACCOUNT:
+                request = post("/api/accounts", String.format("{\"customerId\":\"%s\",\"accountType\":\"%s\"}",
+                    dataset.randomCustomerId(random), dataset.randomAccountType(random)));
+                break;
+            case DEPOSIT:
+                // Account ids contain the routing delimiter '|'
+                request = post("/api/accounts/"
+                        + URLEncoder.encode(dataset.randomAccountId(random), StandardCharsets.UTF_8) + "/deposit",
+                    "{\"amount\":" + AMOUNT + "}");
+                break;
+            case TRANSFER:
+                String from = dataset.randomAccountId(random);
+                request = post("/api/transactions/transfer",
+                    String.format("{\"fromAccountId\":\"%s\",\"toAccountId\":\"%s\",\"amount\":%s}",
+                        from, dataset.otherAccountId(random, from), AMOUNT));
+                break;
+            case CUSTOMER_LOOKUP:
+                request = get("/api/customers/" + dataset.randomCustomerId(random));
+                break;
+            case SEARCH:
+                request = get("/api/search/customers/email?q="
+                    + URLEncoder.encode(dataset.randomEmailQuery(random), StandardCharsets.UTF_8));
+                break;
+            case AGGREGATION:
+                request = get("/api/functions/accounts/summary");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + type);
+        }
+
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(type.key() + " returned HTTP " + response.statusCode());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.geodedemo.loadtest;
+
+import com.example.geodedemo.entity.Account;
+import com.example.geodedemo.function.FunctionExecutionService;
+import com.example.geodedemo.search.LuceneSearchService;
+import com.example.geodedemo.service.AccountService;
+import com.example.geodedemo.service.CustomerService;
+import com.example.geodedemo.service.TransactionService;
+import org.springframework.context.ApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Calls the application services directly: the Geode client path without
+ * HTTP, JSON and the servlet container.
+ */
+final class ServiceTarget implements LoadTarget {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final Dataset dataset;
+    private final AccountService accountService;
+    private final CustomerService customerService;
+    private final TransactionService transactionService;
+    private final LuceneSearchService searchService;
+    private final FunctionExecutionService functionService;
+
+    ServiceTarget(ApplicationContext context, Dataset dataset) {
+        this.dataset = dataset;
+        this.accountService = context.getBean(AccountService.class);
+        this.customerService = context.getBean(CustomerService.class);
+        this.transactionService = context.getBean(TransactionService.class);
+        this.searchService = context.getBean(LuceneSearchService.class);
+        this.functionService = context.getBean(FunctionExecutionService.class);
+    }
+
+    @Override
+    public void execute(OperationType type, Random random) {
+        switch (type) {
+            case CREATE_ACCOUNT:
+                accountService.createAccount(Account.builder()
+                    .customerId(dataset.randomCustomerId(random))
+                    .accountType(dataset.randomAccountType(random))
+                    .build());
+                break;
+            case DEPOSIT:
+                accountService.deposit(dataset.randomAccountId(random), AMOUNT);
+                break;
+            case TRANSFER:
+                String from = dataset.randomAccountId(random);
+                TransactionService.TransferResult result =
+                    transactionService.transferWithTransaction(from, dataset.otherAccountId(random, from), AMOUNT);
+                if (!result.isSuccess()) {
+                    throw new IllegalStateException("Transfer failed: " + result.getMessage());
+                }
+                break;
+            case CUSTOMER_LOOKUP:
+                customerService.getCustomer(dataset.randomCustomerId(random));
+                break;
+            case SEARCH:
+                searchService.searchByEmail(dataset.randomEmailQuery(random));
+                break;
+            case AGGREGATION:
+                functionService.getSummary();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + type);
+        }
+    }
+}
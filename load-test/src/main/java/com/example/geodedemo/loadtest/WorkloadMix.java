@@ -0,0 +1,75 @@
+package com.example.geodedemo.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Weighted operation mix, e.g. "deposit:35,transfer:20,lookup:30,create:5,search:5,aggregate:5".
+ * Weights are relative and need not add up to 100.
+ */
+public final class WorkloadMix {
+
+    public static final String DEFAULT = "deposit:35,transfer:20,lookup:30,create:5,search:5,aggregate:5";
+
+    private final OperationType[] types;
+    private final int[] cumulative;
+    private final int total;
+
+    private WorkloadMix(Map<OperationType, Integer> weights) {
+        types = new OperationType[weights.size()];
+        cumulative = new int[weights.size()];
+        int sum = 0;
+        int i = 0;
+        for (Map.Entry<OperationType, Integer> entry : weights.entrySet()) {
+            sum += entry.getValue();
+            types[i] = entry.getKey();
+            cumulative[i] = sum;
+            i++;
+        }
+        total = sum;
+    }
+
+    public static WorkloadMix parse(String spec) {
+        Map<OperationType, Integer> weights = new EnumMap<>(OperationType.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + part + "', expected operation:weight");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + pair[0]);
+            }
+            if (weight > 0) {
+                weights.merge(OperationType.fromKey(pair[0].trim()), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations: " + spec);
+        }
+        return new WorkloadMix(weights);
+    }
+
+    public OperationType pick(Random random) {
+        int roll = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return types[i];
+            }
+        }
+        return types[types.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        int previous = 0;
+        for (int i = 0; i < types.length; i++) {
+            joiner.add(String.format("%s %.0f%%", types[i].key(), 100.0 * (cumulative[i] - previous) / total));
+            previous = cumulative[i];
+        }
+        return joiner.toString();
+    }
+}